@@ -0,0 +1,48 @@
+package de.chiller.vigral.benchmark;
+
+import de.chiller.vigral.graph.Graph;
+
+/**
+ * a single benchmark. the harness calls setUp once per input graph and then run repeatedly while measuring the time
+ * @author Simon Schiller
+ *
+ */
+public abstract class BenchmarkCase {
+
+	private String mName;
+	
+	/**
+	 * constructs a benchmark case
+	 * @param name the name that is shown in the results
+	 */
+	public BenchmarkCase(String name) {
+		mName = name;
+	}
+	
+	/**
+	 * getter for the name
+	 * @return returns the name of the benchmark
+	 */
+	public String getName() {
+		return mName;
+	}
+	
+	/**
+	 * prepares the benchmark. not included in the measured time
+	 * @param g the generated input graph, it must not be modified
+	 * @throws Exception if the benchmark cannot be prepared
+	 */
+	public abstract void setUp(Graph g) throws Exception;
+	
+	/**
+	 * performs the measured operation once
+	 * @return returns a result of the operation, so it cannot be optimized away
+	 * @throws Exception if the operation fails
+	 */
+	public abstract Object run() throws Exception;
+	
+	/**
+	 * releases the resources of the benchmark. not included in the measured time
+	 */
+	public void tearDown() {}
+}
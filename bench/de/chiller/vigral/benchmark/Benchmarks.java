@@ -0,0 +1,368 @@
+package de.chiller.vigral.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.apache.commons.collections15.Transformer;
+
+import de.chiller.vigral.GraphBuilder;
+import de.chiller.vigral.algorithm.AbstractAlgorithm;
+import de.chiller.vigral.graph.CompactGraph;
+import de.chiller.vigral.graph.Edge;
+import de.chiller.vigral.graph.ElementState;
+import de.chiller.vigral.graph.ElementType;
+import de.chiller.vigral.graph.Graph;
+import de.chiller.vigral.graph.GraphElement;
+import de.chiller.vigral.graph.Vertex;
+import de.chiller.vigral.util.FileOperator;
+import de.chiller.vigral.util.Pair;
+import edu.uci.ics.jung.visualization.RenderContext;
+
+/**
+ * benchmark suite for the performance critical parts of vigral (graph copy, compact snapshot, graph parsing, step recording, file i/o
+ * and the render transformers of the GraphBuilder). every benchmark is performed on every generated input graph.
+ * 
+ * usage: Benchmarks [-sizes 10,100,...] [-generators SPARSE,GRID,...] [-benchmarks name,...] [-warmup &lt;ms&gt;]
+ * [-iterations &lt;n&gt;] [-time &lt;ms&gt;]
+ * 
+ * the sizes are the (approximate) number of edges of the generated graphs. the results are printed as tab separated
+ * table with the average time per operation and its standard deviation over the measured iterations.
+ * @author Simon Schiller
+ *
+ */
+public class Benchmarks {
+
+	private static final long SEED = 42;
+	
+	private static int[] mSizes = { 10, 100, 1000, 10000, 100000, 1000000 };
+	private static GraphGenerator.Type[] mGenerators = GraphGenerator.Type.values();
+	private static ArrayList<String> mSelected = null;
+	private static long mWarmupMillis = 1000;
+	private static int mIterations = 5;
+	private static long mIterationMillis = 500;
+	
+	/**
+	 * the results of the benchmarks are added to this value, so the jit cannot remove the benchmarked code
+	 */
+	private static volatile int mSink;
+	
+	
+	/**
+	 * runs the benchmarks
+	 * @param args the command line arguments
+	 */
+	public static void main(String[] args) throws Exception {
+		System.setProperty("java.awt.headless", "true");
+		parseArguments(args);
+		
+		ArrayList<BenchmarkCase> cases = createCases();
+		
+		System.out.println("benchmark\tgenerator\tsize\tvertices\tedges\tns/op\t+-");
+		for(GraphGenerator.Type type : mGenerators) {
+			for(int size : mSizes) {
+				Graph g = GraphGenerator.generate(type, size, SEED);
+				
+				for(BenchmarkCase c : cases) {
+					if(mSelected != null && !mSelected.contains(c.getName()))
+						continue;
+					
+					c.setUp(g);
+					double[] result = measure(c);
+					c.tearDown();
+					
+					System.out.println(c.getName() +"\t"+ type +"\t"+ size +"\t"+ g.getVertexCount() +"\t"+ g.getEdgeCount()
+							+"\t"+ String.format("%.0f\t%.0f", result[0], result[1]));
+				}
+			}
+		}
+	}
+	
+	
+	/**
+	 * warms the benchmark up and measures it
+	 * @return returns the average time per operation and its standard deviation in nanoseconds
+	 */
+	private static double[] measure(BenchmarkCase c) throws Exception {
+		long end = System.currentTimeMillis() + mWarmupMillis;
+		while(System.currentTimeMillis() < end)
+			mSink += System.identityHashCode(c.run());
+		
+		double[] timePerOp = new double[mIterations];
+		for(int i = 0; i < mIterations; i++) {
+			long ops = 0;
+			long start = System.nanoTime();
+			long stop = start + mIterationMillis * 1000000;
+			long now;
+			do {
+				mSink += System.identityHashCode(c.run());
+				ops++;
+				now = System.nanoTime();
+			} while(now < stop);
+			timePerOp[i] = (double) (now - start) / ops;
+		}
+		
+		double mean = 0;
+		for(double t : timePerOp)
+			mean += t;
+		mean /= mIterations;
+		
+		double variance = 0;
+		for(double t : timePerOp)
+			variance += (t - mean) * (t - mean);
+		variance /= mIterations;
+		
+		return new double[] { mean, Math.sqrt(variance) };
+	}
+	
+	
+	private static ArrayList<BenchmarkCase> createCases() {
+		ArrayList<BenchmarkCase> cases = new ArrayList<BenchmarkCase>();
+		
+		cases.add(new BenchmarkCase("graphCopy") {
+			private Graph mGraph;
+			
+			@Override
+			public void setUp(Graph g) {
+				mGraph = g;
+			}
+			
+			@Override
+			public Object run() {
+				return new Graph(mGraph);
+			}
+		});
+		
+		cases.add(new BenchmarkCase("compactGraph") {
+			private Graph mGraph;
+			
+			@Override
+			public void setUp(Graph g) {
+				mGraph = g;
+			}
+			
+			@Override
+			public Object run() {
+				return new CompactGraph(mGraph);
+			}
+		});
+		
+		cases.add(new BenchmarkCase("parseGraph") {
+			private ArrayList<String[]> mVertices;
+			private ArrayList<String[]> mEdges;
+			
+			@Override
+			public void setUp(Graph g) {
+				mVertices = new ArrayList<String[]>();
+				mEdges = new ArrayList<String[]>();
+				for(Vertex v : g.getVertices())
+					mVertices.add(v.toStringArray());
+				for(Edge e : g.getEdges())
+					mEdges.add(e.toStringArray());
+			}
+			
+			@Override
+			public Object run() {
+				return Graph.parseGraph(mVertices, mEdges);
+			}
+			
+			@Override
+			public void tearDown() {
+				mVertices = null;
+				mEdges = null;
+			}
+		});
+		
+		cases.add(new StepBenchmark("addStep1", false));
+		cases.add(new StepBenchmark("addStep2", true));
+		
+		cases.add(new FileBenchmark("fileRoundTrip", "graph"));
+		cases.add(new FileBenchmark("binaryRoundTrip", "graph"+ FileOperator.BINARY_EXTENSION));
+		
+		cases.add(new BenchmarkCase("renderTransformers") {
+			private GraphBuilder mBuilder;
+			private Collection<Vertex> mVertices;
+			private Collection<Edge> mEdges;
+			private RenderContext<Vertex, Edge> mContext;
+			
+			@Override
+			public void setUp(Graph g) {
+				if(mBuilder == null)
+					mBuilder = new GraphBuilder();
+				mBuilder.setGraph(g);
+				mContext = mBuilder.getVisualizationViewer().getRenderContext();
+				mVertices = mBuilder.getVisualizationViewer().getGraphLayout().getGraph().getVertices();
+				mEdges = mBuilder.getVisualizationViewer().getGraphLayout().getGraph().getEdges();
+			}
+			
+			/**
+			 * asks all transformers for all elements, like painting one frame does
+			 */
+			@Override
+			public Object run() {
+				int hash = 0;
+				hash += transformAll(mContext.getVertexFillPaintTransformer(), mVertices);
+				hash += transformAll(mContext.getVertexShapeTransformer(), mVertices);
+				hash += transformAll(mContext.getVertexLabelTransformer(), mVertices);
+				hash += transformAll(mContext.getVertexFontTransformer(), mVertices);
+				hash += transformAll(mContext.getEdgeDrawPaintTransformer(), mEdges);
+				hash += transformAll(mContext.getEdgeLabelTransformer(), mEdges);
+				hash += transformAll(mContext.getEdgeFontTransformer(), mEdges);
+				return hash;
+			}
+			
+			@Override
+			public void tearDown() {
+				mBuilder.resetGraph();
+			}
+		});
+		
+		return cases;
+	}
+	
+	private static <T> int transformAll(Transformer<T, ?> transformer, Collection<T> elements) {
+		int hash = 0;
+		for(T element : elements)
+			hash += System.identityHashCode(transformer.transform(element));
+		return hash;
+	}
+	
+	
+	/**
+	 * saves the graph to a temporary file and reads it again, the format is chosen by the name of the file
+	 */
+	private static class FileBenchmark extends BenchmarkCase {
+		private String mFileName;
+		private Graph mGraph;
+		private File mDir;
+		private File mFile;
+		
+		private FileBenchmark(String name, String fileName) {
+			super(name);
+			mFileName = fileName;
+		}
+		
+		@Override
+		public void setUp(Graph g) throws IOException {
+			mGraph = g;
+			mDir = File.createTempFile("vigral", "bench");
+			mDir.delete();
+			mDir.mkdir();
+			mFile = new File(mDir, mFileName);
+		}
+		
+		@Override
+		public Object run() throws IOException {
+			FileOperator.getInstance().saveGraphToFile(mGraph, mFile);
+			return FileOperator.getInstance().readGraphFromFile(mFile);
+		}
+		
+		@Override
+		public void tearDown() {
+			mFile.delete();
+			mDir.delete();
+		}
+	}
+	
+	
+	/**
+	 * records steps of an algorithm, every step changes the state of one vertex
+	 */
+	private static class StepBenchmark extends BenchmarkCase {
+		
+		/**
+		 * the number of steps after that the algorithm is reset, to limit the memory used by the recorded steps
+		 */
+		private static final int MAX_STEPS = 1024;
+		
+		private boolean mTwoGraphs;
+		private Graph mGraph;
+		private Graph mSecondGraph;
+		private ArrayList<Vertex> mVertices;
+		private int mNext;
+		
+		private AbstractAlgorithm mAlgorithm = new AbstractAlgorithm() {
+			@Override
+			public ArrayList<Pair<ElementType, String>> getRequirements() {
+				return null;
+			}
+			@Override
+			public void setRequirements(ArrayList<GraphElement> requiredElements) {}
+			@Override
+			public void perform() {}
+			@Override
+			public String getAlgorithmName() {
+				return "benchmark";
+			}
+		};
+		
+		private StepBenchmark(String name, boolean twoGraphs) {
+			super(name);
+			mTwoGraphs = twoGraphs;
+		}
+		
+		@Override
+		public void setUp(Graph g) {
+			mGraph = new Graph(g);
+			mSecondGraph = new Graph(g);
+			mVertices = new ArrayList<Vertex>(mGraph.getVertices());
+			mNext = 0;
+			mAlgorithm.setGraph(mGraph);
+		}
+		
+		@Override
+		public Object run() {
+			if(mAlgorithm.getStepCount() >= MAX_STEPS)
+				mAlgorithm.setGraph(mGraph);
+			
+			Vertex v = mVertices.get(mNext++ % mVertices.size());
+			v.setState(v.getState() == ElementState.VISITED ? ElementState.ACTIVE : ElementState.VISITED);
+			
+			if(mTwoGraphs)
+				mAlgorithm.addStep(mGraph, mSecondGraph, "step");
+			else
+				mAlgorithm.addStep(mGraph, "step");
+			return v;
+		}
+		
+		@Override
+		public void tearDown() {
+			mGraph = null;
+			mSecondGraph = null;
+			mVertices = null;
+			mAlgorithm.setGraph(new Graph());
+		}
+	}
+	
+	
+	private static void parseArguments(String[] args) {
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-sizes")) {
+				String[] values = args[++i].split(",");
+				mSizes = new int[values.length];
+				for(int j = 0; j < values.length; j++)
+					mSizes[j] = Integer.parseInt(values[j].trim());
+			}
+			else if(args[i].equals("-generators")) {
+				String[] values = args[++i].split(",");
+				mGenerators = new GraphGenerator.Type[values.length];
+				for(int j = 0; j < values.length; j++)
+					mGenerators[j] = GraphGenerator.Type.valueOf(values[j].trim().toUpperCase());
+			}
+			else if(args[i].equals("-benchmarks")) {
+				mSelected = new ArrayList<String>();
+				for(String name : args[++i].split(","))
+					mSelected.add(name.trim());
+			}
+			else if(args[i].equals("-warmup"))
+				mWarmupMillis = Long.parseLong(args[++i]);
+			else if(args[i].equals("-iterations"))
+				mIterations = Integer.parseInt(args[++i]);
+			else if(args[i].equals("-time"))
+				mIterationMillis = Long.parseLong(args[++i]);
+			else
+				throw new IllegalArgumentException("unknown argument '"+ args[i] +"'");
+		}
+	}
+}
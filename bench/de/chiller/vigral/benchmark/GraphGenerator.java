@@ -0,0 +1,182 @@
+package de.chiller.vigral.benchmark;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Random;
+
+import de.chiller.vigral.graph.Edge;
+import de.chiller.vigral.graph.Graph;
+import de.chiller.vigral.graph.Vertex;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+/**
+ * creates synthetic graphs for the benchmarks. the graphs only depend on the type, the size and the seed, so results
+ * of different runs are comparable
+ * @author Simon Schiller
+ *
+ */
+public class GraphGenerator {
+
+	/**
+	 * the kinds of graphs that can be generated
+	 */
+	public enum Type {
+		/** random directed graph with twice as many edges as vertices */
+		SPARSE,
+		/** (nearly) complete undirected graph */
+		DENSE,
+		/** square grid, every vertex is connected to its right and lower neighbour */
+		GRID,
+		/** preferential attachment (Barabasi-Albert), every new vertex is connected to two existing ones */
+		SCALE_FREE
+	}
+	
+	private static final int AREA = 1000;
+	private static final int GRID_DISTANCE = 50;
+	private static final int ATTACHMENTS = 2;
+	
+	private Random mRandom;
+	private Graph mGraph;
+	private ArrayList<Vertex> mVertices;
+	
+	
+	private GraphGenerator(long seed) {
+		mRandom = new Random(seed);
+		mGraph = new Graph();
+		mVertices = new ArrayList<Vertex>();
+	}
+	
+	/**
+	 * generates a graph
+	 * @param type the kind of the graph
+	 * @param size the (approximate) number of edges of the graph
+	 * @param seed the seed of the random numbers
+	 * @return returns the generated graph
+	 */
+	public static Graph generate(Type type, int size, long seed) {
+		Vertex.VertexFactory.getInstance().resetIdCounter();
+		Edge.EdgeFactory.getInstance().resetIdCounter();
+		
+		GraphGenerator generator = new GraphGenerator(seed);
+		switch(type) {
+		case SPARSE:
+			generator.sparse(size);
+			break;
+		case DENSE:
+			generator.dense(size);
+			break;
+		case GRID:
+			generator.grid(size);
+			break;
+		case SCALE_FREE:
+			generator.scaleFree(size);
+			break;
+		}
+		
+		return generator.mGraph;
+	}
+	
+	
+	private void sparse(int size) {
+		int n = Math.max(2, size / 2);
+		for(int i = 0; i < n; i++)
+			addVertex(randomLocation());
+		
+		for(int i = 0; i < size; i++) {
+			int s = mRandom.nextInt(n);
+			int t = mRandom.nextInt(n - 1);
+			if(t >= s)
+				t++;
+			addEdge(s, t, true);
+		}
+	}
+	
+	private void dense(int size) {
+		// the smallest number of vertices whose complete graph has at least 'size' edges
+		int n = 2;
+		while((long) n * (n - 1) / 2 < size)
+			n++;
+		
+		for(int i = 0; i < n; i++)
+			addVertex(randomLocation());
+		
+		int count = 0;
+		for(int s = 0; s < n && count < size; s++)
+			for(int t = s + 1; t < n && count < size; t++, count++)
+				addEdge(s, t, false);
+	}
+	
+	private void grid(int size) {
+		int side = Math.max(2, (int) Math.round(Math.sqrt(size / 2.0)));
+		for(int y = 0; y < side; y++)
+			for(int x = 0; x < side; x++)
+				addVertex(new Point2D.Double(x * GRID_DISTANCE, y * GRID_DISTANCE));
+		
+		for(int y = 0; y < side; y++) {
+			for(int x = 0; x < side; x++) {
+				if(x + 1 < side)
+					addEdge(y * side + x, y * side + x + 1, false);
+				if(y + 1 < side)
+					addEdge(y * side + x, (y + 1) * side + x, false);
+			}
+		}
+	}
+	
+	private void scaleFree(int size) {
+		int n = Math.max(ATTACHMENTS + 1, size / ATTACHMENTS);
+		
+		// every edge adds both of its ends to this list, so picking from it prefers vertices with a high degree
+		ArrayList<Integer> ends = new ArrayList<Integer>();
+		
+		// start with a complete graph
+		for(int i = 0; i <= ATTACHMENTS; i++)
+			addVertex(randomLocation());
+		for(int s = 0; s <= ATTACHMENTS; s++) {
+			for(int t = s + 1; t <= ATTACHMENTS; t++) {
+				addEdge(s, t, false);
+				ends.add(s);
+				ends.add(t);
+			}
+		}
+		
+		int[] targets = new int[ATTACHMENTS];
+		for(int i = ATTACHMENTS + 1; i < n; i++) {
+			addVertex(randomLocation());
+			for(int j = 0; j < ATTACHMENTS; j++) {
+				int t;
+				boolean duplicate;
+				do {
+					t = ends.get(mRandom.nextInt(ends.size()));
+					duplicate = false;
+					for(int k = 0; k < j; k++)
+						duplicate |= targets[k] == t;
+				} while(duplicate);
+				targets[j] = t;
+			}
+			for(int t : targets) {
+				addEdge(i, t, false);
+				ends.add(i);
+				ends.add(t);
+			}
+		}
+	}
+	
+	
+	private Point2D randomLocation() {
+		return new Point2D.Double(mRandom.nextInt(AREA), mRandom.nextInt(AREA));
+	}
+	
+	private void addVertex(Point2D location) {
+		Vertex.VertexFactory.getInstance().setLocation(location);
+		Vertex v = Vertex.VertexFactory.getInstance().create();
+		mGraph.addVertex(v);
+		mVertices.add(v);
+	}
+	
+	private void addEdge(int start, int end, boolean directed) {
+		Vertex s = mVertices.get(start);
+		Vertex t = mVertices.get(end);
+		Edge e = Edge.EdgeFactory.getInstance().create(s, t, directed);
+		mGraph.addEdge(e, s, t, directed ? EdgeType.DIRECTED : EdgeType.UNDIRECTED);
+	}
+}
@@ -0,0 +1,225 @@
+package de.chiller.vigral;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.chiller.vigral.algorithm.AbstractAlgorithm;
+import de.chiller.vigral.graph.ElementType;
+import de.chiller.vigral.graph.Graph;
+import de.chiller.vigral.graph.GraphElement;
+import de.chiller.vigral.util.FileOperator;
+import de.chiller.vigral.util.Pair;
+import de.chiller.vigral.util.PluginInfo;
+import de.chiller.vigral.util.PluginLoader;
+
+/**
+ * command line entry point that performs an algorithm (plugin) on a saved graph without creating any Swing components.
+ * it reports the number of steps, the wall time and the peak heap usage of every run and can be used to measure the
+ * plugins on large graphs.
+ * 
+ * usage: BatchRunner [-plugins &lt;dir&gt;] [-runs &lt;n&gt;] [-verbose] &lt;graph file&gt; &lt;algorithm&gt; [&lt;requirement&gt; ...]
+ * 
+ * the algorithm is given by its name or its class name. the requirements are given in the order the algorithm asks
+ * for them as vertex ids ("V3" or "3"), edge ids ("E5" or "5") or "-" to leave an optional requirement out.
+ * the console output of the plugins is suppressed unless -verbose is given.
+ * @author Simon Schiller
+ *
+ */
+public class BatchRunner {
+
+	private static final String USAGE = "usage: BatchRunner [-plugins <dir>] [-runs <n>] [-verbose] <graph file> <algorithm> [<requirement> ...]";
+	
+	private static final int EXIT_USAGE = 1;
+	private static final int EXIT_FAILURE = 2;
+	
+	
+	/**
+	 * runs the batch runner
+	 * @param args the command line arguments
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+		
+		int runs = 1;
+		boolean verbose = false;
+		ArrayList<String> params = new ArrayList<String>();
+		
+		try {
+			for(int i = 0; i < args.length; i++) {
+				if(args[i].equals("-plugins"))
+					PluginLoader.getInstance().setPluginDir(new File(args[++i]));
+				else if(args[i].equals("-runs"))
+					runs = Integer.parseInt(args[++i]);
+				else if(args[i].equals("-verbose"))
+					verbose = true;
+				else
+					params.add(args[i]);
+			}
+		} catch(Exception e) {
+			exit(EXIT_USAGE, USAGE);
+		}
+		
+		if(params.size() < 2 || runs < 1)
+			exit(EXIT_USAGE, USAGE);
+		
+		// the report is written to the original output, the output of the plugins is discarded
+		PrintStream out = System.out;
+		if(!verbose) {
+			System.setOut(new PrintStream(new OutputStream() {
+				@Override
+				public void write(int b) {}
+				@Override
+				public void write(byte[] b, int off, int len) {}
+			}));
+		}
+		
+		// load the graph and the algorithm
+		Graph graph = null;
+		try {
+			graph = FileOperator.getInstance().readGraphFromFile(new File(params.get(0)));
+		} catch(Exception e) {
+			e.printStackTrace();
+		}
+		if(graph == null)
+			exit(EXIT_FAILURE, "cannot load graph '"+ params.get(0) +"'");
+		
+		PluginInfo plugin = findPlugin(params.get(1));
+		if(plugin == null)
+			exit(EXIT_FAILURE, "cannot find algorithm '"+ params.get(1) +"'");
+		
+		out.println("graph: "+ params.get(0) +" ("+ graph.getVertexCount() +" vertices, "+ graph.getEdgeCount() +" edges)");
+		out.println("algorithm: "+ plugin.getName());
+		out.println("run\tsteps\ttime [ms]\tpeak heap [MB]");
+		
+		for(int run = 1; run <= runs; run++) {
+			// every run works on its own copy, because the algorithm modifies the graph
+			Graph g = new Graph(graph);
+			// and on its own instance, so the steps of the previous run are released
+			AbstractAlgorithm algorithm = null;
+			try {
+				algorithm = plugin.createAlgorithm();
+			} catch(ReflectiveOperationException e) {
+				e.printStackTrace();
+				exit(EXIT_FAILURE, "cannot load algorithm '"+ plugin.getName() +"'");
+			}
+			
+			ArrayList<GraphElement> required = null;
+			try {
+				required = parseRequirements(algorithm.getRequirements(), g, params.subList(2, params.size()));
+			} catch(IllegalArgumentException e) {
+				exit(EXIT_USAGE, e.getMessage());
+			}
+			
+			System.gc();
+			resetPeakHeap();
+			long start = System.nanoTime();
+			
+			try {
+				if(required != null)
+					algorithm.setRequirements(required);
+				algorithm.setGraph(g);
+				algorithm.perform();
+			} catch(Exception e) {
+				e.printStackTrace();
+				algorithm.dispose();
+				exit(EXIT_FAILURE, "cannot perform algorithm '"+ algorithm.getAlgorithmName() +"'");
+			}
+			
+			long time = (System.nanoTime() - start) / 1000000;
+			double heap = getPeakHeap() / (1024.0 * 1024.0);
+			out.println(run +"\t"+ algorithm.getStepCount() +"\t"+ time +"\t"+ String.format("%.1f", heap));
+			// the log file of the steps is deleted before the next run
+			algorithm.dispose();
+		}
+	}
+	
+	
+	/**
+	 * searches the loaded plugins for the algorithm with the given name or class name
+	 */
+	private static PluginInfo findPlugin(String name) {
+		ArrayList<PluginInfo> plugins = PluginLoader.getInstance().loadPlugins();
+		if(plugins == null)
+			return null;
+		
+		for(PluginInfo plugin : plugins) {
+			String className = plugin.getClassName().substring(plugin.getClassName().lastIndexOf('.') + 1);
+			if(name.equalsIgnoreCase(plugin.getName()) || name.equals(className))
+				return plugin;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * maps the given ids onto the elements of the graph in the order of the requirements of the algorithm
+	 * @return returns the required elements or null if the algorithm has no requirements
+	 */
+	private static ArrayList<GraphElement> parseRequirements(ArrayList<Pair<ElementType, String>> requirements, Graph g, 
+			List<String> ids) {
+		if(requirements == null)
+			return null;
+		
+		if(ids.size() != requirements.size()) {
+			String names = "";
+			for(Pair<ElementType, String> r : requirements)
+				names += " <"+ r.getR() + (r.getL() == ElementType.OPTIONAL_VERTEX || r.getL() == ElementType.OPTIONAL_EDGE ? " (optional)" : "") +">";
+			throw new IllegalArgumentException("the algorithm requires:"+ names);
+		}
+		
+		ArrayList<GraphElement> required = new ArrayList<GraphElement>();
+		for(int i = 0; i < requirements.size(); i++) {
+			ElementType type = requirements.get(i).getL();
+			String id = ids.get(i);
+			boolean optional = type == ElementType.OPTIONAL_VERTEX || type == ElementType.OPTIONAL_EDGE;
+			
+			if(id.equals("-")) {
+				if(!optional)
+					throw new IllegalArgumentException("'"+ requirements.get(i).getR() +"' is not optional");
+				required.add(null);
+				continue;
+			}
+			
+			GraphElement element;
+			try {
+				if(type == ElementType.VERTEX || type == ElementType.OPTIONAL_VERTEX)
+					element = g.getVertexById(Integer.parseInt(id.replaceFirst("^[vV]", "")));
+				else
+					element = g.getEdgeById(Integer.parseInt(id.replaceFirst("^[eE]", "")));
+			} catch(NumberFormatException e) {
+				element = null;
+			}
+			
+			if(element == null)
+				throw new IllegalArgumentException("'"+ id +"' is no valid id for '"+ requirements.get(i).getR() +"'");
+			required.add(element);
+		}
+		
+		return required;
+	}
+	
+	private static void resetPeakHeap() {
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if(pool.getType() == MemoryType.HEAP)
+				pool.resetPeakUsage();
+	}
+	
+	private static long getPeakHeap() {
+		long peak = 0;
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if(pool.getType() == MemoryType.HEAP)
+				peak += pool.getPeakUsage().getUsed();
+		return peak;
+	}
+	
+	private static void exit(int status, String message) {
+		System.err.println(message);
+		System.exit(status);
+	}
+}
@@ -9,6 +9,7 @@ import java.awt.Shape;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.WeakHashMap;
 
 import javax.swing.JPanel;
 
@@ -18,12 +19,16 @@ import org.apache.commons.collections15.functors.ConstantTransformer;
 import de.chiller.vigral.graph.Edge;
 import de.chiller.vigral.graph.ElementState;
 import de.chiller.vigral.graph.Graph;
+import de.chiller.vigral.graph.GraphChanges;
 import de.chiller.vigral.graph.Vertex;
+import de.chiller.vigral.jung.IdEdgeIndexFunction;
+import de.chiller.vigral.jung.LevelOfDetailRenderer;
+import de.chiller.vigral.jung.LocationLayout;
 import de.chiller.vigral.jung.MyColor;
 import de.chiller.vigral.jung.MyModalGraphMouse;
+import de.chiller.vigral.jung.SpatialPickSupport;
 import de.chiller.vigral.settings.Settings;
 import edu.uci.ics.jung.algorithms.layout.Layout;
-import edu.uci.ics.jung.algorithms.layout.StaticLayout;
 import edu.uci.ics.jung.visualization.VisualizationViewer;
 import edu.uci.ics.jung.visualization.control.ModalGraphMouse;
 import edu.uci.ics.jung.visualization.decorators.ConstantDirectionalEdgeValueTransformer;
@@ -40,8 +45,12 @@ public class GraphBuilder {
 	 * numerical value that will be considered in modifying the position of the vertices
 	 */
 	private static final int PADDING = 10;
+	/**
+	 * the shape of all vertices. the renderer only transforms it into new shapes, so it can be shared
+	 */
+	private static final Shape VERTEX_SHAPE = new Ellipse2D.Double(-VERTEXRADIUS, -VERTEXRADIUS, 2*VERTEXRADIUS, 2*VERTEXRADIUS);
 
-	private ArrayList<Layout<Vertex, Edge>> mLayoutList;
+	private ArrayList<LocationLayout> mLayoutList;
 	
 	
 	/**
@@ -69,6 +78,51 @@ public class GraphBuilder {
 	 */
 	private Settings mSettings = Settings.getInstance();
 	
+	/**
+	 * the colors and fonts used by the transformers. they are created once per version of the settings instead of
+	 * once per element and frame
+	 */
+	private int mRenderVersion = -1;
+	private Paint[] mStatePaints = new Paint[ElementState.values().length];
+	private Paint mPickedPaint;
+	private Font mVertexFont;
+	private Font mEdgeFont;
+	
+	/**
+	 * the offset of the edge labels from their edges, depends on the number of lines shown and the label size
+	 */
+	private int mLabelOffset;
+	
+	/*
+	 * workaround!
+	 * 
+	 * ISSUE:
+	 * changing the label size of edges in SettingsDialog will not take effect for HTML labels as long as the label
+	 * string stays the same.
+	 * 
+	 * WORKAROUND:
+	 * every time the settings change, a whitespace is appended to (or removed from) all HTML edge labels. This changes
+	 * every label once and forces repainting it with the new size.
+	 */
+	private boolean mHtmlLabelSuffix = false;
+	
+	/**
+	 * the labels built for the elements, so that they are only built again if a value shown in them has changed.
+	 * the graphs of old steps are not kept alive by this
+	 */
+	private WeakHashMap<Vertex, VertexLabel> mVertexLabels = new WeakHashMap<Vertex, VertexLabel>();
+	private WeakHashMap<Edge, EdgeLabel> mEdgeLabels = new WeakHashMap<Edge, EdgeLabel>();
+	
+	/**
+	 * draws the viewers again when the graph of creation mode has been changed. a bulk edit of the graph is drawn once
+	 */
+	private Graph.ChangeListener mGraphChangeListener = new Graph.ChangeListener() {
+		@Override
+		public void onGraphChanged(Graph graph) {
+			redraw();
+		}
+	};
+	
 	
 	
 	
@@ -84,17 +138,18 @@ public class GraphBuilder {
 	private Transformer<Vertex, Shape> mVertexShapeTransformer = new Transformer<Vertex, Shape>() {
 		@Override
 		public Shape transform(Vertex v) {
-			Ellipse2D circle = new Ellipse2D.Double(-VERTEXRADIUS, -VERTEXRADIUS, 2*VERTEXRADIUS, 2*VERTEXRADIUS);
 			//return AffineTransform.getScaleInstance(2, 2).createTransformedShape(circle);
-			return circle;
+			return VERTEX_SHAPE;
 		}
 	};
 
 	private Transformer<Vertex, Paint> mVertexPaintTransformer = new Transformer<Vertex, Paint>() {
 		@Override
 		public Paint transform(Vertex v) {
-			if(v.isPicked())
-				return Color.decode(Settings.getInstance().getColor(Settings.COLOR_PICKED));
+			if(v.isPicked()) {
+				validateRenderCache();
+				return mPickedPaint;
+			}
 			
 			if(v.getCustomColor() != null)
 				return v.getCustomColor();
@@ -114,95 +169,30 @@ public class GraphBuilder {
 	};
 	
 	private Transformer<Edge, String> mEdgeLabelTransformer = new Transformer<Edge, String>() {
-		
-		/*
-		 * workaround!
-		 * 
-		 * ISSUE:
-		 * changing the label size of edges in SettingsDialog will not take effect. Only if you change the view settings, the label size
-		 * the edges is updated too.
-		 * 
-		 * REASON:
-		 * the HTML string, that is returned by this transformer. If you return a static, normal, hardcoded string (e.g. "hello") the label
-		 * size is updated every time when it is changed via the SettingsDialog.
-		 * 
-		 * WORKAROUND:
-		 * every second time this transformer is asked to transform an edge to a string, append a whitespace. All the other times return just
-		 * the desired string.
-		 * This will force repainting of the edges because the label has changed
-		 */
-		private boolean mBOO = false;
-		
 		@Override
 		public String transform(Edge e) {
-			String lbl;
-			int offset = 0;
+			validateRenderCache();
 			
-			if(e.getCustomLabel().equals("")){
-				
-				lbl = "<html>";
-				Settings settings = Settings.getInstance();
-				
-				
-				if(settings.getView(Settings.VIEW_WEIGHT)) {
-					offset++;
-					double w = e.getWeight();
-					if(w % 1 == 0)
-						lbl += "w="+ (int) w;
-					else
-						lbl += "w="+ w;
-				}
-				if(settings.getView(Settings.VIEW_MIN_CAPACITY)) {
-					if(!lbl.equals("<html>"))
-						lbl += "<br />";
-					offset++;
-					double c = e.getMinCapacity();
-					if(c % 1 == 0)
-						lbl += "min C="+ (int) c;
-					else
-						lbl += "min C="+ c;
-				}
-				if(settings.getView(Settings.VIEW_MAX_CAPACITY)) {
-					if(!lbl.equals("<html>"))
-						lbl += "<br />";
-					offset++;
-					double c = e.getMaxCapacity();
-					if(c % 1 == 0)
-						lbl += "max C="+ (int) c;
-					else
-						lbl += "max C="+ c;
-				}
-				lbl += "</html>";
-				
-				
-				if(mBOO) {
-					mBOO = false;
-					lbl += " ";
-				}
-				else {
-					mBOO = true;
-				}
-			}
-			else
-			{
-				lbl = e.getCustomLabel();
+			EdgeLabel label = mEdgeLabels.get(e);
+			if(label == null || !label.matches(e, mRenderVersion)) {
+				label = new EdgeLabel(e, mRenderVersion, buildEdgeLabel(e));
+				mEdgeLabels.put(e, label);
 			}
 			
-			// set the label offset according to the number of lines of the label and edge label font size (center the label)
-			for(int i = 0; i < mVViewerList.size(); i++)
-				mVViewerList.get(i).getRenderContext().setLabelOffset(offset * mSettings.getLabelSize(Settings.LABEL_EDGE));
-			
-			return lbl;
+			return label.mText;
 		}
 	};
 	
 	private Transformer<Vertex, String> mVertexLabelTransformer = new Transformer<Vertex, String>() {
 		@Override
 		public String transform(Vertex v) {
-			if(v.getLabel().equals(""))
-				return "<html>"+ v.getIdentifier() +"<br />"+ v.getLabelAddition() +"</html>";
-			else
-				return "<html>"+ v.getLabel() +"<br />"+ v.getLabelAddition() +"</html>";
+			VertexLabel label = mVertexLabels.get(v);
+			if(label == null || !label.matches(v)) {
+				label = new VertexLabel(v, buildVertexLabel(v));
+				mVertexLabels.put(v, label);
+			}
+			
+			return label.mText;
 		}
 	};
 	
@@ -211,14 +201,16 @@ public class GraphBuilder {
 		
 		@Override
 		public Font transform(Edge e) {
-			return new Font("Helvetica", Font.PLAIN, mSettings.getLabelSize(Settings.LABEL_EDGE));
+			validateRenderCache();
+			return mEdgeFont;
 		}
 	};
 	
 	private Transformer<Vertex, Font> mVertexFontTransformer = new Transformer<Vertex, Font>() {
 		@Override
 		public Font transform(Vertex v) {
-			return new Font("Helvetica", Font.PLAIN, mSettings.getLabelSize(Settings.LABEL_VERTEX));
+			validateRenderCache();
+			return mVertexFont;
 		}
 	};
 	
@@ -235,20 +227,117 @@ public class GraphBuilder {
 	 * @return the color of 'state' set by the user
 	 */
 	public Paint checkStateForColor(ElementState state) {
+		validateRenderCache();
+		return mStatePaints[state.ordinal()];
+	}
+	
+	/**
+	 * returns the key of the color setting for the given state
+	 * @param state the ElementState
+	 * @return returns the key of the color in the settings
+	 */
+	private static String getColorKey(ElementState state) {
 		switch(state) {
 		case UNVISITED:
-			return Color.decode(Settings.getInstance().getColor(Settings.COLOR_UNVISITED));
+			return Settings.COLOR_UNVISITED;
 		case ACTIVE:
-			return Color.decode(Settings.getInstance().getColor(Settings.COLOR_ACTIVE));
+			return Settings.COLOR_ACTIVE;
 		case VISITED:
-			return Color.decode(Settings.getInstance().getColor(Settings.COLOR_VISITED));
+			return Settings.COLOR_VISITED;
 		case FINISHED_AND_NOT_RELEVANT:
-			return Color.decode(Settings.getInstance().getColor(Settings.COLOR_FINISHED_AND_NOT_RELEVANT));
+			return Settings.COLOR_FINISHED_AND_NOT_RELEVANT;
 		case FINISHED_AND_RELEVANT:
-			return Color.decode(Settings.getInstance().getColor(Settings.COLOR_FINISHED_AND_RELEVANT));
+			return Settings.COLOR_FINISHED_AND_RELEVANT;
 		default:
-			return Color.decode(Settings.getInstance().getColor(Settings.COLOR_UNVISITED));
+			return Settings.COLOR_UNVISITED;
+		}
+	}
+	
+	/**
+	 * creates the colors and fonts of the transformers again, if the settings have changed since they were created
+	 */
+	private void validateRenderCache() {
+		if(mRenderVersion == mSettings.getVersion())
+			return;
+		
+		for(ElementState state : ElementState.values())
+			mStatePaints[state.ordinal()] = Color.decode(mSettings.getColor(getColorKey(state)));
+		mPickedPaint = Color.decode(mSettings.getColor(Settings.COLOR_PICKED));
+		mVertexFont = new Font("Helvetica", Font.PLAIN, mSettings.getLabelSize(Settings.LABEL_VERTEX));
+		mEdgeFont = new Font("Helvetica", Font.PLAIN, mSettings.getLabelSize(Settings.LABEL_EDGE));
+		
+		// set the label offset according to the number of lines of the labels and edge label font size (center the label)
+		int lines = 0;
+		if(mSettings.getView(Settings.VIEW_WEIGHT))
+			lines++;
+		if(mSettings.getView(Settings.VIEW_MIN_CAPACITY))
+			lines++;
+		if(mSettings.getView(Settings.VIEW_MAX_CAPACITY))
+			lines++;
+		mLabelOffset = lines * mSettings.getLabelSize(Settings.LABEL_EDGE);
+		for(int i = 0; i < mVViewerList.size(); i++)
+			mVViewerList.get(i).getRenderContext().setLabelOffset(mLabelOffset);
+		
+		mHtmlLabelSuffix = !mHtmlLabelSuffix;
+		mRenderVersion = mSettings.getVersion();
+	}
+	
+	/**
+	 * builds the label of an edge according to the view settings. a label of more than one line is an HTML string
+	 * @param e the edge
+	 * @return returns the label
+	 */
+	private String buildEdgeLabel(Edge e) {
+		if(!e.getCustomLabel().equals(""))
+			return e.getCustomLabel();
+		
+		ArrayList<String> lines = new ArrayList<String>(3);
+		if(mSettings.getView(Settings.VIEW_WEIGHT))
+			lines.add("w="+ formatValue(e.getWeight()));
+		if(mSettings.getView(Settings.VIEW_MIN_CAPACITY))
+			lines.add("min C="+ formatValue(e.getMinCapacity()));
+		if(mSettings.getView(Settings.VIEW_MAX_CAPACITY))
+			lines.add("max C="+ formatValue(e.getMaxCapacity()));
+		
+		if(lines.isEmpty())
+			return "";
+		if(lines.size() == 1)
+			return lines.get(0);
+		
+		StringBuilder lbl = new StringBuilder("<html>");
+		for(int i = 0; i < lines.size(); i++) {
+			if(i > 0)
+				lbl.append("<br />");
+			lbl.append(lines.get(i));
 		}
+		lbl.append("</html>");
+		if(mHtmlLabelSuffix)
+			lbl.append(" ");
+		
+		return lbl.toString();
+	}
+	
+	/**
+	 * builds the label of a vertex. the label addition is shown in a second line, if there is one
+	 * @param v the vertex
+	 * @return returns the label
+	 */
+	private static String buildVertexLabel(Vertex v) {
+		String name = v.getLabel().equals("") ? v.getIdentifier() : v.getLabel();
+		
+		if(v.getLabelAddition().equals(""))
+			return name;
+		
+		return "<html>"+ name +"<br />"+ v.getLabelAddition() +"</html>";
+	}
+	
+	/**
+	 * formats a weight or capacity without decimal places if it is integral
+	 */
+	private static String formatValue(double value) {
+		if(value % 1 == 0)
+			return String.valueOf((int) value);
+		return String.valueOf(value);
 	}
 	
 	/**
@@ -257,11 +346,12 @@ public class GraphBuilder {
 	public GraphBuilder() {
 		// create a graph
 		mGraph = new Graph();
+		mGraph.addChangeListener(mGraphChangeListener);
 		mResultingGraphs = new ArrayList<Graph>();
 		mResultingGraphs.add(mGraph);
 		
 		mVViewerList = new ArrayList<VisualizationViewer<Vertex, Edge>>();
-		mLayoutList = new ArrayList<Layout<Vertex, Edge>>();
+		mLayoutList = new ArrayList<LocationLayout>();
 		mGraphMouseList = new ArrayList<MyModalGraphMouse>();
 		
 		/*
@@ -300,8 +390,8 @@ public class GraphBuilder {
 		mVViewer1.getRenderer().getVertexLabelRenderer().setPosition(Renderer.VertexLabel.Position.CNTR);
 		*/
 		
-		mLayoutList.add(new StaticLayout<Vertex, Edge>(mGraph));
-		mLayoutList.add(new StaticLayout<Vertex, Edge>(new Graph()));
+		mLayoutList.add(new LocationLayout(mGraph));
+		mLayoutList.add(new LocationLayout(new Graph()));
 		
 		for(int i = 0; i < mLayoutList.size(); i++) {
 			mVViewerList.add(new VisualizationViewer<Vertex, Edge>(mLayoutList.get(i)));
@@ -321,11 +411,14 @@ public class GraphBuilder {
 			
 
 		vv.setGraphMouse(graphMouse);
+		vv.setPickSupport(new SpatialPickSupport(vv));
+		vv.setRenderer(new LevelOfDetailRenderer());
 		vv.setFocusable(true);
 		
 		vv.setBackground(Color.WHITE);
 		
 		// initialize the edge renderer
+		vv.getRenderContext().setParallelEdgeIndexFunction(new IdEdgeIndexFunction());
 		vv.getRenderContext().setEdgeLabelTransformer(mEdgeLabelTransformer);
 		vv.getRenderContext().setEdgeDrawPaintTransformer(mEdgePaintTransformer);
 		vv.getRenderContext().setArrowDrawPaintTransformer(mEdgePaintTransformer);
@@ -335,6 +428,7 @@ public class GraphBuilder {
 		vv.getRenderContext().getEdgeLabelRenderer().setRotateEdgeLabels(true);
 		vv.getRenderContext().setEdgeFontTransformer(mEdgeFontTransformer);
 		vv.getRenderContext().setEdgeLabelClosenessTransformer(new ConstantDirectionalEdgeValueTransformer<Vertex, Edge>(.5, .5));
+		vv.getRenderContext().setLabelOffset(mLabelOffset);
 		
 		// initialize the vertex renderer
 		vv.getRenderContext().setVertexLabelTransformer(mVertexLabelTransformer);
@@ -381,65 +475,22 @@ public class GraphBuilder {
 		
 		//mVViewer.resize(dimen);
 		// resize graph if needed
-		if(panel_nr == 0)
-			modifyLocationsIfOutOfBounds(mGraph, 0);
-		
-		for(int i = 0; i < mResultingGraphs.size(); i++)
-			modifyLocationsIfOutOfBounds(mResultingGraphs.get(i), i);
-		
-		//modifyLocationsIfOutOfBounds(mResultingGraphs.get(1));
+		modifyLocationsIfOutOfBounds(panel_nr);
 	}
 	
 	/**
 	 * is called when resizing the frame
-	 * checks for all vertices if their position will be gone out of view. if so, the position will
-	 * be modified to avoid disappearing of some vertices. This will ensure, that the complete graph
-	 * is visible all the time.
-	 * @param graph the graph to the size of
-	 * @param number the number of that graph referring to the panel that shows the graph (0 or 1)
+	 * sets the bounds of the layout to the size of the viewer. the layout moves the vertices that would be out of view
+	 * into it. This will ensure, that the complete graph is visible all the time.
+	 * @param number the number of the panel that shows the graph (0 or 1)
 	 */
-	private void modifyLocationsIfOutOfBounds(Graph graph, int number) {
-		
-		if(!graph.getVertices().isEmpty()) {
-			
-			// TODO check
-			Dimension dimen = mVViewerList.get(number).getSize();
-			int i = 0;
-			
-			//System.out.println("dimen: "+ dimen.toString());
-			for(Vertex v : graph.getVertices()) {
-				
-				// TODO check
-				Point2D p = mLayoutList.get(number).transform(v);
-				p.setLocation(v.getLocation());
-				//System.out.println("vertex "+ i++ +": ("+ p.getX() +", "+ p.getY() +")");
-				double x = p.getX();
-				double y = p.getY();
-				double newX = x;
-				double newY = y;
-				
-				int min = PADDING + VERTEXRADIUS;
-				int maxW = dimen.width - PADDING -VERTEXRADIUS;
-				int maxH = dimen.height - PADDING - VERTEXRADIUS;
-				if(x < min)
-					newX = min;
-				else if(x > maxW)
-					newX = maxW;
-				if(y < min)
-					newY = min;
-				else if(y > maxH)
-					newY = maxH;
-				
-				if((newX != x) || (newY != y)) {
-					p.setLocation(newX, newY);
-					//v.updateLocation(p);
-					//mLayout.setLocation(v, v.getLocation());
-				}
-			}
-			
-			// TODO check
-			mVViewerList.get(number).repaint();
-		}
+	private void modifyLocationsIfOutOfBounds(int number) {
+		Dimension dimen = mVViewerList.get(number).getSize();
+		int min = PADDING + VERTEXRADIUS;
+		int maxW = dimen.width - PADDING - VERTEXRADIUS;
+		int maxH = dimen.height - PADDING - VERTEXRADIUS;
+		mLayoutList.get(number).setBounds(min, maxW, maxH);
+		mVViewerList.get(number).repaint();
 	}
 	
 	
@@ -497,13 +548,50 @@ public class GraphBuilder {
 	}
 	
 	/**
-	 * setter for the displayed graph in visualization mode
-	 * @param g the graph that will be copied and displayed
+	 * getter for the graph of creation mode without copying it. the graph is shared with the editor, so it must only
+	 * be read and not kept (use getGraph to get a graph that may be modified)
+	 * @return returns the graph itself
+	 */
+	public Graph getGraphView() {
+		return mGraph;
+	}
+	
+	/**
+	 * starts a bulk edit of the graph of creation mode. the viewers are drawn again once, when it is applied
+	 * @return returns the bulk edit
+	 */
+	public Graph.BulkEdit beginBulkEdit() {
+		return mGraph.beginBulkEdit();
+	}
+	
+	/**
+	 * setter for the displayed graph in visualization mode. the graphs are shown as they are, without a copy, so they
+	 * must not be modified by anyone else afterwards (the steps of an algorithm are rebuilt as new graphs every time)
+	 * @param graphs the graphs that will be displayed
 	 */
 	public void setResultingGraph(ArrayList<Graph> graphs) {
+		setResultingGraph(graphs, null);
+	}
+	
+	/**
+	 * setter for the displayed graph in visualization mode. the viewers only update the elements that have changed since
+	 * the graphs that have been set before
+	 * @param graphs the graphs that will be displayed
+	 * @param changes the changes of every graph since the graphs that have been set before or null, if they are not known
+	 */
+	public void setResultingGraph(ArrayList<Graph> graphs, ArrayList<GraphChanges> changes) {
+		for(int i = 0; i < graphs.size() && i < mVViewerList.size(); i++) {
+			Graph from = (i < mResultingGraphs.size()) ? mResultingGraphs.get(i) : null;
+			GraphChanges graphChanges = (changes != null && i < changes.size()) ? changes.get(i) : null;
+			VisualizationViewer<Vertex, Edge> vv = mVViewerList.get(i);
+			if(vv.getPickSupport() instanceof SpatialPickSupport)
+				((SpatialPickSupport) vv.getPickSupport()).setChanges(from, graphs.get(i), graphChanges);
+			if(vv.getRenderer() instanceof LevelOfDetailRenderer)
+				((LevelOfDetailRenderer) vv.getRenderer()).getTileCache().setChanges(from, graphs.get(i), graphChanges);
+		}
+		
 		mResultingGraphs.clear();
-		for(int i = 0; i < graphs.size(); i++)
-			mResultingGraphs.add(i, new Graph(graphs.get(i)));
+		mResultingGraphs.addAll(graphs);
 		
 		showResultGraph();
 	}
@@ -530,11 +618,10 @@ public class GraphBuilder {
 	
 	private void showResultGraph() {
 		
+		// the layouts keep the positions of the previous step, only vertices that have moved are placed again
 		for(int i = 0; i < mResultingGraphs.size(); i++)
 			mLayoutList.get(i).setGraph(mResultingGraphs.get(i));
 		
-		updateLocations();
-		
 		for(int i = 0; i < mResultingGraphs.size(); i++)
 			mVViewerList.get(i).repaint();
 		
@@ -542,13 +629,10 @@ public class GraphBuilder {
 	
 	
 	private void updateLocations() {
+		// the positions are taken from the locations of the vertices again
 		for(int i = 0; i < mVViewerList.size(); i++) {
-			for(Vertex v : mVViewerList.get(i).getGraphLayout().getGraph().getVertices()) {
-				//mLayout.setLocation(v, v.getLocation());
-				Point2D p = mLayoutList.get(i).transform(v);
-				p.setLocation(v.getLocation());
-			}
-			modifyLocationsIfOutOfBounds((Graph) mVViewerList.get(i).getGraphLayout().getGraph(), i);
+			mLayoutList.get(i).reset();
+			mVViewerList.get(i).repaint();
 		}
 	}
 	
@@ -585,7 +669,9 @@ public class GraphBuilder {
 	 * @param g the graph that will be copied and displayed
 	 */
 	public void setGraph(Graph g) {
+		mGraph.removeChangeListener(mGraphChangeListener);
 		mGraph = new Graph(g);
+		mGraph.addChangeListener(mGraphChangeListener);
 		showOriginGraph();
 	}
 	
@@ -593,7 +679,9 @@ public class GraphBuilder {
 	 * displays a new, empty graph
 	 */
 	public void resetGraph() {
+		mGraph.removeChangeListener(mGraphChangeListener);
 		mGraph = new Graph();
+		mGraph.addChangeListener(mGraphChangeListener);
 		mLayoutList.get(0).setGraph(mGraph);
 		mVViewerList.get(0).repaint();
 		resetResultGraph();
@@ -611,8 +699,59 @@ public class GraphBuilder {
 	 * tells the graphbuilder to redraw the graph
 	 */
 	public void redraw() {
-		for(int i = 0; i < mVViewerList.size(); i++)
+		for(int i = 0; i < mVViewerList.size(); i++) {
+			// anything may have changed, not only the elements of the last step
+			if(mVViewerList.get(i).getRenderer() instanceof LevelOfDetailRenderer)
+				((LevelOfDetailRenderer) mVViewerList.get(i).getRenderer()).getTileCache().clearChanges();
 			mVViewerList.get(i).repaint();
+		}
 	}
 	
+	
+	
+	/**
+	 * a built vertex label together with the values it shows
+	 */
+	private static class VertexLabel {
+		private String mLabel;
+		private String mLabelAddition;
+		private String mText;
+		
+		private VertexLabel(Vertex v, String text) {
+			mLabel = v.getLabel();
+			mLabelAddition = v.getLabelAddition();
+			mText = text;
+		}
+		
+		private boolean matches(Vertex v) {
+			return mLabel.equals(v.getLabel()) && mLabelAddition.equals(v.getLabelAddition());
+		}
+	}
+	
+	
+	/**
+	 * a built edge label together with the values and the version of the settings it shows
+	 */
+	private static class EdgeLabel {
+		private int mVersion;
+		private String mCustomLabel;
+		private double mWeight;
+		private double mMinCapacity;
+		private double mMaxCapacity;
+		private String mText;
+		
+		private EdgeLabel(Edge e, int version, String text) {
+			mVersion = version;
+			mCustomLabel = e.getCustomLabel();
+			mWeight = e.getWeight();
+			mMinCapacity = e.getMinCapacity();
+			mMaxCapacity = e.getMaxCapacity();
+			mText = text;
+		}
+		
+		private boolean matches(Edge e, int version) {
+			return mVersion == version && mCustomLabel.equals(e.getCustomLabel()) && mWeight == e.getWeight()
+					&& mMinCapacity == e.getMinCapacity() && mMaxCapacity == e.getMaxCapacity();
+		}
+	}
 }
@@ -29,15 +29,21 @@ import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import javax.swing.text.BadLocationException;
 import javax.swing.text.DefaultCaret;
+import javax.swing.text.Document;
 
 import de.chiller.vigral.algorithm.AbstractAlgorithm;
+import de.chiller.vigral.algorithm.AlgorithmRunner;
+import de.chiller.vigral.algorithm.ExplanationLog;
 import de.chiller.vigral.algorithm.RequirementDialog;
 import de.chiller.vigral.graph.ElementType;
 import de.chiller.vigral.graph.Graph;
+import de.chiller.vigral.graph.GraphChanges;
 import de.chiller.vigral.menubar.MenuBar;
 import de.chiller.vigral.util.ErrorDialog;
 import de.chiller.vigral.util.Pair;
+import de.chiller.vigral.util.PluginInfo;
 import de.chiller.vigral.util.PluginLoader;
 
 /**
@@ -80,6 +86,10 @@ public class VigralGUI extends JFrame {
 	
 	private static final int DEFAULT_PLAY_SPEED = 2001;
 	private static final int PLAY_STEP_SIZE = 200;
+	// the shortest time between two shown steps while playing (about the refresh rate of the display)
+	private static final int FRAME_INTERVAL = 16;
+	
+	private static final String NO_COMPARISON = "-- compare with --";
 	
 	
 	
@@ -96,17 +106,32 @@ public class VigralGUI extends JFrame {
 	
 	
 	// member fields
-	private ArrayList<AbstractAlgorithm> mAvailableAlgorithms = null;
+	private ArrayList<PluginInfo> mAvailablePlugins = null;
 	private AbstractAlgorithm mChosenAlgorithm;
+	private AlgorithmRunner mRunner;
+	// the algorithm performed at the same time to be compared with the chosen one (null if there is no comparison)
+	private AbstractAlgorithm mComparedAlgorithm;
+	private AlgorithmRunner mComparedRunner;
+	private String mRunInfo;
+	private String mComparedRunInfo;
+	// the steps shown in comparison, one algorithm may already be at its end while the other goes on
+	private Pair<ArrayList<Graph>, String> mShownStep;
+	private Pair<ArrayList<Graph>, String> mShownComparedStep;
+	// the algorithms whose requirements still have to be applied and those that are ready to be performed
+	private ArrayList<AbstractAlgorithm> mPendingAlgorithms = new ArrayList<AbstractAlgorithm>();
+	private ArrayList<AbstractAlgorithm> mReadyAlgorithms = new ArrayList<AbstractAlgorithm>();
 	
 	private int mMode;
 	
 	private MenuBar mMenuBar;
-	private JComboBox mCb_algorithm = new JComboBox();
-	private DefaultComboBoxModel mAlgorithmBoxModel = new DefaultComboBoxModel();
+	private JComboBox<String> mCb_algorithm = new JComboBox<String>();
+	private DefaultComboBoxModel<String> mAlgorithmBoxModel = new DefaultComboBoxModel<String>();
+	private JComboBox<String> mCb_compareAlgorithm = new JComboBox<String>();
+	private DefaultComboBoxModel<String> mCompareBoxModel = new DefaultComboBoxModel<String>();
 	private JSplitPane mSplt_ContentPanel = new JSplitPane();
 	private JSplitPane mSplt_GraphPanel = new JSplitPane();
 	private JButton mBtn_changeMode = new JButton();
+	private JButton mBtn_cancel = new JButton("Cancel");
 	private JButton mBtn_play = new JButton();
 	private JButton mBtn_pause = new JButton();
 	private JButton mBtn_jumpToStart = new JButton();
@@ -124,10 +149,18 @@ public class VigralGUI extends JFrame {
 	private JSlider mSldr_playSpeed = new JSlider(JSlider.HORIZONTAL, SPEED_MIN, SPEED_MAX, SPEED_INIT);
 	
 	private Rectangle mSliderSpace = new Rectangle();
+	// seeks directly to a step of the algorithm
+	private JSlider mSldr_timeline = new JSlider(JSlider.HORIZONTAL, 0, 0, 0);
+	// true while the timeline is moved to the actual step, so it does not seek itself
+	private boolean mUpdatingTimeline = false;
 	
 	private GraphBuilder mGraphBuilder;
 	
 	private Timer mPlayTimer;
+	// the step and the time playing has started from, the step to show is derived from the elapsed time
+	private long mPlayStartTime;
+	private int mPlayStartStep;
+	private int mPlayedStep;
 	
 	
 	/**
@@ -140,20 +173,66 @@ public class VigralGUI extends JFrame {
 	
 
 
+	// the player advances the steps at the chosen speed, but shows at most one step per frame. steps that have been
+	// passed in between are skipped, so they are neither copied nor rendered
 	private ActionListener mOnTimerTick = new ActionListener() {
 		@Override
 		public void actionPerformed(ActionEvent e) {
-			// get graph of next step
-			Pair<ArrayList<Graph>, String> p = mChosenAlgorithm.getNextStep();
+			if(mChosenAlgorithm == null)
+				return;
+			
+			// the user has moved to another step in the meantime
+			int actual = getPlayerStep();
+			if(actual != mPlayedStep)
+				restartPlayClock();
+			
+			int last = mChosenAlgorithm.getStepCount() - 1;
+			if(mComparedAlgorithm != null)
+				last = Math.max(last, mComparedAlgorithm.getStepCount() - 1);
+			
+			// pause, if there are no further graphs (and the algorithm will not record any more)
+			if(actual >= last) {
+				if(!isAlgorithmRunning())
+					mBtn_pause.doClick();
+				// go on with the speed from here, when new steps are recorded
+				restartPlayClock();
+				return;
+			}
+			
+			long elapsed = (System.nanoTime() - mPlayStartTime) / 1000000;
+			int target = mPlayStartStep + (int) (elapsed / calcPlaySpeed());
+			if(target <= actual)
+				return;
 			
-			// show graph or pause, if there are no further graphs
-			if(p == null)
-				mBtn_pause.doClick();
-			else
-				update(p);
+			target = Math.min(target, last);
+			Pair<ArrayList<Graph>, String> p = mChosenAlgorithm.getStep(Math.min(target, mChosenAlgorithm.getStepCount() - 1));
+			Pair<ArrayList<Graph>, String> q = null;
+			if(mComparedAlgorithm != null)
+				q = mComparedAlgorithm.getStep(Math.min(target, mComparedAlgorithm.getStepCount() - 1));
+			update(p, q);
+			mPlayedStep = getPlayerStep();
 		}
 	};
 	
+	/**
+	 * returns the step the player is at (in comparison the one of the algorithm that is further)
+	 */
+	private int getPlayerStep() {
+		int step = mChosenAlgorithm.getActualStep();
+		if(mComparedAlgorithm != null)
+			step = Math.max(step, mComparedAlgorithm.getActualStep());
+		return step;
+	}
+	
+	/**
+	 * lets the player count the steps from the actual step and time
+	 */
+	private void restartPlayClock() {
+		mPlayStartTime = System.nanoTime();
+		mPlayStartStep = (mChosenAlgorithm != null) ? getPlayerStep() : 0;
+		mPlayedStep = mPlayStartStep;
+	}
+	
 	
 	// When clicking "visualization" in creation mode
 	private ActionListener mCreationListener = new ActionListener() {
@@ -164,27 +243,62 @@ public class VigralGUI extends JFrame {
 			// query the drawn graph
 			Graph graph = mGraphBuilder.getGraph();
 			
-			if(graph.getVertexCount() != 0 && mAvailableAlgorithms != null) {
+			// the previous algorithm has to stop before it can be performed again
+			if(isAlgorithmRunning())
+				return;
+			
+			if(graph.getVertexCount() != 0 && mAvailablePlugins != null && mCb_algorithm.getSelectedIndex() >= 0) {
 				
-				// query chosen algorithm
-				mChosenAlgorithm = mAvailableAlgorithms.get(mCb_algorithm.getSelectedIndex()); 
+				// every run gets a new instance of the chosen algorithms, their classes are loaded the first time they are chosen
+				ArrayList<PluginInfo> plugins = new ArrayList<PluginInfo>();
+				plugins.add(mAvailablePlugins.get(mCb_algorithm.getSelectedIndex()));
+				// the first entry of the comparison list means no comparison
+				if(mCb_compareAlgorithm.getSelectedIndex() > 0)
+					plugins.add(mAvailablePlugins.get(mCb_compareAlgorithm.getSelectedIndex() - 1));
 				
-				// get requirements of the chosen algorithm
-				try {
-					ArrayList<Pair<ElementType, String>> require = mChosenAlgorithm.getRequirements();
-						
-					if(require != null) {
-						// show requirements dialog
-						RequirementDialog dialog = new RequirementDialog(require, graph, mChosenAlgorithm);
-						dialog.setModal(true);
-						dialog.setVisible(true);
+				ArrayList<AbstractAlgorithm> algorithms = new ArrayList<AbstractAlgorithm>();
+				for(PluginInfo plugin : plugins) {
+					try {
+						algorithms.add(plugin.createAlgorithm());
+					} catch(ReflectiveOperationException ex) {
+						ErrorDialog.showErrorDialog(null, "cannot load algorithm '"+ plugin.getName() +"'", ex);
+						return;
+					}
+				}
+				
+				mPendingAlgorithms = new ArrayList<AbstractAlgorithm>(algorithms);
+				mReadyAlgorithms = new ArrayList<AbstractAlgorithm>();
+				for(int i = 0; i < algorithms.size(); i++) {
+					AbstractAlgorithm algorithm = algorithms.get(i);
+					// every algorithm works on its own copy of the graph
+					Graph g = (i == 0) ? graph : new Graph(graph);
+					
+					// get requirements of the algorithm
+					try {
+						ArrayList<Pair<ElementType, String>> require = algorithm.getRequirements();
+							
+						if(require != null) {
+							// show requirements dialog
+							RequirementDialog dialog = new RequirementDialog(require, g, algorithm);
+							dialog.setModal(true);
+							dialog.setVisible(true);
+						}
+						else {
+							// next step, if there are no requirements
+							requirementsApplied(g);
+						}
+					} catch(Exception ex) {
+						ErrorDialog.showErrorDialog(null, "somethings wrong with requirements of algorithm '"+ algorithm.getAlgorithmName() +"'", ex);
 					}
-					else {
-						// next step, if there are no requirements
-						requirementsApplied(graph);
+					
+					// the dialog has been cancelled
+					if(mPendingAlgorithms.contains(algorithm)) {
+						for(AbstractAlgorithm dropped : algorithms)
+							dropped.dispose();
+						mPendingAlgorithms.clear();
+						mReadyAlgorithms.clear();
+						return;
 					}
-				} catch(Exception ex) {
-					ErrorDialog.showErrorDialog(null, "somethings wrong with requirements of algorithm '"+ mChosenAlgorithm.getAlgorithmName() +"'", ex);
 				}
 			}
 		}
@@ -195,6 +309,9 @@ public class VigralGUI extends JFrame {
 	private ActionListener mVisualisationListener = new ActionListener() {
 		@Override
 		public void actionPerformed(ActionEvent e) {
+			// stop the algorithms, if they are still running
+			cancelAlgorithms();
+			
 			// change mode
 			changeMode(Mode.GRAPHCREATION);
 			
@@ -250,28 +367,28 @@ public class VigralGUI extends JFrame {
 	private ActionListener mJumpStartListener = new ActionListener() {
 		@Override
 		public void actionPerformed(ActionEvent e) {
-			update(mChosenAlgorithm.getFirstStep());
+			update(mChosenAlgorithm.getFirstStep(), (mComparedAlgorithm != null) ? mComparedAlgorithm.getFirstStep() : null);
 		}
 	};
 	
 	private ActionListener mPreviousStepListener = new ActionListener() {
 		@Override
 		public void actionPerformed(ActionEvent e) {
-			update(mChosenAlgorithm.getPreviousStep());
+			update(mChosenAlgorithm.getPreviousStep(), (mComparedAlgorithm != null) ? mComparedAlgorithm.getPreviousStep() : null);
 		}
 	};
 	
 	private ActionListener mNextStepListener = new ActionListener() {
 		@Override
 		public void actionPerformed(ActionEvent e) {
-			update(mChosenAlgorithm.getNextStep());
+			update(mChosenAlgorithm.getNextStep(), (mComparedAlgorithm != null) ? mComparedAlgorithm.getNextStep() : null);
 		}
 	};
 	
 	private ActionListener mJumpEndListener = new ActionListener() {
 		@Override
 		public void actionPerformed(ActionEvent e) {
-			update(mChosenAlgorithm.getLastStep());
+			update(mChosenAlgorithm.getLastStep(), (mComparedAlgorithm != null) ? mComparedAlgorithm.getLastStep() : null);
 		}
 	};
 	
@@ -283,8 +400,9 @@ public class VigralGUI extends JFrame {
 			// System.out.println("Start timer!");
 			int speed = calcPlaySpeed();
 //			mPlayTimer = new Timer(speed, mOnTimerTick);
-			mPlayTimer.setDelay(speed);
-			mPlayTimer.setInitialDelay(speed);
+			restartPlayClock();
+			mPlayTimer.setDelay(Math.max(Math.min(speed, FRAME_INTERVAL), 1));
+			mPlayTimer.setInitialDelay(Math.min(speed, FRAME_INTERVAL));
 			mPlayTimer.start();
 		}
 	};
@@ -300,12 +418,97 @@ public class VigralGUI extends JFrame {
 			mPlayTimer.stop();
 		}
 	};
+	private ActionListener mCancelListener = new ActionListener() {
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			cancelAlgorithms();
+		}
+	};
+	
+	/**
+	 * informed about the progress of an algorithm running in the background
+	 */
+	private class RunListener implements AlgorithmRunner.ProgressListener {
+		// true if this listener belongs to the compared algorithm
+		private boolean mCompared;
+		
+		private RunListener(boolean compared) {
+			mCompared = compared;
+		}
+		
+		@Override
+		public void onProgress(int stepCount) {
+			if(mMode != Mode.VISUALISATION)
+				return;
+			
+			updateTimeline();
+			
+			if(mComparedAlgorithm == null)
+				setTitle("ViGrAl - Visualization (running, "+ stepCount +" steps)");
+			else {
+				if(mCompared)
+					mComparedRunInfo = "running, "+ stepCount +" steps";
+				else
+					mRunInfo = "running, "+ stepCount +" steps";
+				showComparison();
+			}
+		}
+		
+		@Override
+		public void onFinished(boolean cancelled, Exception error) {
+			AlgorithmRunner runner = mCompared ? mComparedRunner : mRunner;
+			AbstractAlgorithm algorithm = runner.getAlgorithm();
+			String info = getRunInfo(runner, cancelled);
+			if(mCompared) {
+				mComparedRunner = null;
+				mComparedRunInfo = info;
+			}
+			else {
+				mRunner = null;
+				mRunInfo = info;
+			}
+			
+			if(!isAlgorithmRunning()) {
+				mBtn_cancel.setVisible(false);
+				mCb_algorithm.setVisible(true);
+			}
+			
+			if(mMode == Mode.VISUALISATION) {
+				if(mComparedAlgorithm != null)
+					showComparison();
+				else if(cancelled)
+					setTitle("ViGrAl - Visualization (cancelled, "+ algorithm.getStepCount() +" steps)");
+				else
+					setTitle("ViGrAl - Visualization");
+			}
+			
+			if(error != null)
+				ErrorDialog.showErrorDialog(null, "cant perform algorithm '" + algorithm.getAlgorithmName() + "'", error);
+		}
+	}
+	
+	private ChangeListener onTimelineValueChanged = new ChangeListener() {
+		@Override
+		public void stateChanged(ChangeEvent e) {
+			if(mUpdatingTimeline || mChosenAlgorithm == null)
+				return;
+			
+			int step = mSldr_timeline.getValue();
+			Pair<ArrayList<Graph>, String> p = mChosenAlgorithm.getStep(Math.min(step, mChosenAlgorithm.getStepCount() - 1));
+			Pair<ArrayList<Graph>, String> q = null;
+			if(mComparedAlgorithm != null)
+				q = mComparedAlgorithm.getStep(Math.min(step, mComparedAlgorithm.getStepCount() - 1));
+			update(p, q);
+		}
+	};
+	
 	private ChangeListener onSliderValueChanged = new ChangeListener() {
 		@Override
 		public void stateChanged(ChangeEvent e) {
 			// System.out.println("slider value: "+ mSldr_playSpeed.getValue());
 			int speed = calcPlaySpeed();
-			mPlayTimer.setDelay(speed);
+			restartPlayClock();
+			mPlayTimer.setDelay(Math.max(Math.min(speed, FRAME_INTERVAL), 1));
 		}
 	};
 	
@@ -352,6 +555,16 @@ public class VigralGUI extends JFrame {
 		mCb_algorithm.setBackground(Color.WHITE);
 		initAlgorithms();
 		mCb_algorithm.setModel(mAlgorithmBoxModel);	
+		mCb_algorithm.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				updateAlgorithmToolTip();
+			}
+		});
+		updateAlgorithmToolTip();
+		mCb_compareAlgorithm.setBackground(Color.WHITE);
+		mCb_compareAlgorithm.setModel(mCompareBoxModel);
+		mCb_compareAlgorithm.setToolTipText("performs a second algorithm at the same time to compare both");
 		
 		// init speed modificator (slider)
 		Hashtable<Integer, JLabel> labelTable = new Hashtable<Integer, JLabel>();
@@ -364,12 +577,18 @@ public class VigralGUI extends JFrame {
 		mSldr_playSpeed.setPaintTicks(true);
 		mSldr_playSpeed.addChangeListener(onSliderValueChanged );
 		
+		// init the timeline (slider to seek a step)
+		mSldr_timeline.addChangeListener(onTimelineValueChanged);
+		
 		// init button panel (show buttons available in creation mode)
 		mButtonPanel.setLayout(null);
 		mButtonPanel.add(mBtn_changeMode);
 		mButtonPanel.add(mButtonBar);
 		mButtonPanel.add(mCb_algorithm);
+		mButtonPanel.add(mCb_compareAlgorithm);
+		mButtonPanel.add(mBtn_cancel);
 		mButtonPanel.add(mSldr_playSpeed);
+		mButtonPanel.add(mSldr_timeline);
 		mButtonPanel.addComponentListener(onResizeButtonPanelListener);
 		
 		// init 'main' graph panel (graph drawing area)
@@ -461,20 +680,50 @@ public class VigralGUI extends JFrame {
 	
 	private void initAlgorithms() {
 		// load plugins into algorithm list
-		mAvailableAlgorithms = PluginLoader.getInstance().loadPlugins();
-		if(mAvailableAlgorithms != null) {
-			for(int i = 0; i < mAvailableAlgorithms.size(); i++)
-				mAlgorithmBoxModel.addElement(mAvailableAlgorithms.get(i).getAlgorithmName());
+		mAvailablePlugins = PluginLoader.getInstance().loadPlugins();
+		mCompareBoxModel.addElement(NO_COMPARISON);
+		if(mAvailablePlugins != null) {
+			for(int i = 0; i < mAvailablePlugins.size(); i++) {
+				mAlgorithmBoxModel.addElement(mAvailablePlugins.get(i).getName());
+				mCompareBoxModel.addElement(mAvailablePlugins.get(i).getName());
+			}
+		}
+	}
+	
+	/**
+	 * shows the requirements of the chosen algorithm as tool tip of the algorithm box
+	 */
+	private void updateAlgorithmToolTip() {
+		int index = mCb_algorithm.getSelectedIndex();
+		if(mAvailablePlugins == null || index < 0 || index >= mAvailablePlugins.size()) {
+			mCb_algorithm.setToolTipText(null);
+			return;
+		}
+		
+		ArrayList<Pair<ElementType, String>> require = mAvailablePlugins.get(index).getRequirements();
+		if(require == null) {
+			mCb_algorithm.setToolTipText("no requirements");
+			return;
 		}
+		
+		String text = "<html>requires:";
+		for(Pair<ElementType, String> r : require)
+			text += "<br />"+ r.getR();
+		mCb_algorithm.setToolTipText(text +"</html>");
 	}
 	
 	/**
 	 * initiates the reloading of the plugins
 	 */
 	public void updateAlgorithmBox() {
-		// reload plugins and refill algorithm list
-		mAvailableAlgorithms.clear();
+		// the class loaders of the old plugins are closed, so the algorithms must not go on
+		cancelAlgorithms();
+		
+		// reload plugins and refill algorithm lists
+		if(mAvailablePlugins != null)
+			mAvailablePlugins.clear();
 		mAlgorithmBoxModel.removeAllElements();
+		mCompareBoxModel.removeAllElements();
 		
 		initAlgorithms();
 //		onResizeButtonPanel();
@@ -515,6 +764,10 @@ public class VigralGUI extends JFrame {
 		mScp_scrollPane.setMinimumSize(new Dimension(0,0));
 		
 		mCb_algorithm.setSize(new Dimension(200, 30));
+		mCb_compareAlgorithm.setSize(mCb_algorithm.getSize());
+		mBtn_cancel.setSize(mCb_algorithm.getSize());
+		mBtn_cancel.addActionListener(mCancelListener);
+		mBtn_cancel.setVisible(false);
 		
 		Dimension btnDimen = new Dimension(200, 30);
 		mBtn_changeMode.setSize(btnDimen);
@@ -551,31 +804,91 @@ public class VigralGUI extends JFrame {
 		comboRect.x = rect.width - comboRect.width - MARGIN;
 		comboRect.y = MARGIN;
 		mCb_algorithm.setBounds(comboRect);
+		// the cancel button takes the place of the (disabled) algorithm list while an algorithm is running
+		mBtn_cancel.setBounds(comboRect);
+		
+		// the list of algorithms to compare with is left of the algorithm list
+		Rectangle compareRect = new Rectangle(comboRect);
+		compareRect.x = comboRect.x - compareRect.width - MARGIN;
+		mCb_compareAlgorithm.setBounds(compareRect);
 		
 		mSliderSpace.width = buttonRect.x - mButtonBar.getWidth() - 3*MARGIN;
 		Point p = mSldr_playSpeed.getLocation();
 		p.x = mSliderSpace.x + (mSliderSpace.width / 2) - (mSldr_playSpeed.getWidth() / 2);
 		mSldr_playSpeed.setLocation(p);
+		
+		// the timeline is above the button bar and the speed slider
+		Rectangle timelineRect = new Rectangle();
+		timelineRect.x = MARGIN;
+		timelineRect.width = comboRect.x - 2*MARGIN;
+		timelineRect.height = Math.max(mButtonBar.getY(), 20);
+		mSldr_timeline.setBounds(timelineRect);
 	}
 	
 	/**
 	 * this method tells the main class, that the requirements demanded by the algorithm (plugin) has been applied correctly.
-	 * So the mode can be changed to visualization mode.
+	 * So the mode can be changed to visualization mode, as soon as the requirements of all chosen algorithms are applied.
 	 * @param g the graph on what the algorithm will work
 	 */
 	public void requirementsApplied(Graph g) {
 		// System.out.println("requirements applied");
+		// the requirements are applied in the order the algorithms have been chosen
+		if(mPendingAlgorithms.isEmpty())
+			return;
+		AbstractAlgorithm algorithm = mPendingAlgorithms.remove(0);
+		algorithm.setGraph(g);
+		mReadyAlgorithms.add(algorithm);
+		if(!mPendingAlgorithms.isEmpty())
+			return;
+		
 		// change mode to visualization
 		changeMode(Mode.VISUALISATION);
 		
+		mChosenAlgorithm = mReadyAlgorithms.get(0);
+		mComparedAlgorithm = (mReadyAlgorithms.size() > 1) ? mReadyAlgorithms.get(1) : null;
+		mReadyAlgorithms.clear();
+		
 		// load the first step of the algorithm
-		mChosenAlgorithm.setGraph(g);
-		try {
-			mChosenAlgorithm.perform();
-		} catch(Exception e) {
-			ErrorDialog.showErrorDialog(null, "cant perform algorithm '" + mChosenAlgorithm.getAlgorithmName() + "'", e);
+		mTxt_explanation.setText("");
+		if(mComparedAlgorithm != null) {
+			// show both algorithms side by side
+			setTitle("ViGrAl - Comparison");
+			mRunInfo = "running";
+			mComparedRunInfo = "running";
+			mShownStep = null;
+			mShownComparedStep = null;
+			mSplt_GraphPanel.setDividerLocation(0.5d);
 		}
-		update(mChosenAlgorithm.getFirstStep());
+		update(mChosenAlgorithm.getFirstStep(), (mComparedAlgorithm != null) ? mComparedAlgorithm.getFirstStep() : null);
+		
+		// perform the algorithms in the background, the steps can be shown while they are running
+		mCb_algorithm.setVisible(false);
+		mBtn_cancel.setVisible(true);
+		mRunner = new AlgorithmRunner(mChosenAlgorithm, new RunListener(false));
+		if(mComparedAlgorithm != null)
+			mComparedRunner = new AlgorithmRunner(mComparedAlgorithm, new RunListener(true));
+		
+		mRunner.execute();
+		if(mComparedRunner != null)
+			mComparedRunner.execute();
+	}
+	
+	/**
+	 * tells the algorithms running in the background to stop
+	 */
+	private void cancelAlgorithms() {
+		if(mRunner != null)
+			mRunner.requestCancel();
+		if(mComparedRunner != null)
+			mComparedRunner.requestCancel();
+	}
+	
+	/**
+	 * indicates if an algorithm is performed in the background
+	 * @return returns true if the algorithm has not finished yet
+	 */
+	public boolean isAlgorithmRunning() {
+		return mRunner != null || mComparedRunner != null;
 	}
 	
 	/**
@@ -596,9 +909,20 @@ public class VigralGUI extends JFrame {
 		
 		// toggle button visibilities
 		if(mMode == Mode.GRAPHCREATION) {
+			// release the algorithms and the steps they recorded
+			if(mChosenAlgorithm != null)
+				mChosenAlgorithm.dispose();
+			if(mComparedAlgorithm != null)
+				mComparedAlgorithm.dispose();
+			mChosenAlgorithm = null;
+			mComparedAlgorithm = null;
+			mShownStep = null;
+			mShownComparedStep = null;
 			setTitle("ViGrAl - Graph Creation");
 			mCb_algorithm.setEnabled(true);
+			mCb_compareAlgorithm.setVisible(true);
 			mSldr_playSpeed.setVisible(false);
+			mSldr_timeline.setVisible(false);
 			mBtn_changeMode.setText("Visualization");
 			mButtonBar.setVisible(false);
 			mBtn_changeMode.removeActionListener(mVisualisationListener);
@@ -607,9 +931,11 @@ public class VigralGUI extends JFrame {
 		else if(mMode == Mode.VISUALISATION) {
 			setTitle("ViGrAl - Visualization");
 			mCb_algorithm.setEnabled(false);
+			mCb_compareAlgorithm.setVisible(false);
 			mBtn_changeMode.setText("Graph Creation");
 			mButtonBar.setVisible(true);
 			mSldr_playSpeed.setVisible(true);
+			mSldr_timeline.setVisible(true);
 			mBtn_changeMode.removeActionListener(mCreationListener);
 			mBtn_changeMode.addActionListener(mVisualisationListener);
 		}
@@ -624,13 +950,117 @@ public class VigralGUI extends JFrame {
 	}
 	
 	
-	private void update(Pair<ArrayList<Graph>, String> pair) {
-		if(pair == null)
+	private void update(Pair<ArrayList<Graph>, String> pair, Pair<ArrayList<Graph>, String> comparedPair) {
+		if(mComparedAlgorithm == null) {
+			if(pair == null)
+				return;
+			
+			// show the given graph and the explanations up to the actual step
+			mGraphBuilder.setResultingGraph(pair.getL(), mChosenAlgorithm.getChanges());
+			showExplanation(mChosenAlgorithm.getExplanationLog(), mChosenAlgorithm.getActualStep());
+			updateTimeline();
+			return;
+		}
+		
+		// in comparison the first graph of each algorithm is shown, an algorithm without a new step keeps its last one
+		if(pair == null && comparedPair == null)
+			return;
+		if(pair != null)
+			mShownStep = pair;
+		if(comparedPair != null)
+			mShownComparedStep = comparedPair;
+		
+		ArrayList<Graph> graphs = new ArrayList<Graph>();
+		graphs.add((mShownStep != null) ? mShownStep.getL().get(0) : new Graph());
+		graphs.add((mShownComparedStep != null) ? mShownComparedStep.getL().get(0) : new Graph());
+		// an algorithm without a new step keeps its graph, so its changes do not matter
+		ArrayList<GraphChanges> changes = new ArrayList<GraphChanges>();
+		changes.add((pair != null) ? getFirstChanges(mChosenAlgorithm) : null);
+		changes.add((comparedPair != null) ? getFirstChanges(mComparedAlgorithm) : null);
+		mGraphBuilder.setResultingGraph(graphs, changes);
+		showComparison();
+		updateTimeline();
+	}
+	
+	/**
+	 * returns the changes of the first graph of the step an algorithm has returned last
+	 */
+	private GraphChanges getFirstChanges(AbstractAlgorithm algorithm) {
+		ArrayList<GraphChanges> changes = algorithm.getChanges();
+		return (changes != null && !changes.isEmpty()) ? changes.get(0) : null;
+	}
+	
+	/**
+	 * moves the timeline to the actual step and extends it to the steps recorded so far
+	 */
+	private void updateTimeline() {
+		if(mChosenAlgorithm == null)
+			return;
+		
+		int count = mChosenAlgorithm.getStepCount();
+		int step = mChosenAlgorithm.getActualStep();
+		if(mComparedAlgorithm != null) {
+			count = Math.max(count, mComparedAlgorithm.getStepCount());
+			step = Math.max(step, mComparedAlgorithm.getActualStep());
+		}
+		
+		mUpdatingTimeline = true;
+		mSldr_timeline.setMaximum(Math.max(count - 1, 0));
+		mSldr_timeline.setValue(Math.max(step, 0));
+		mSldr_timeline.setToolTipText("step "+ (Math.max(step, 0) + 1) +" of "+ count);
+		mUpdatingTimeline = false;
+	}
+	
+	/**
+	 * shows the state and the explanation of the actual step of both compared algorithms
+	 */
+	private void showComparison() {
+		if(mComparedAlgorithm == null)
 			return;
 		
-		// show the given graph and its explanation
-		mGraphBuilder.setResultingGraph(pair.getL());
-		mTxt_explanation.setText(pair.getR());
+		String text = describeRun(mChosenAlgorithm, mRunInfo, mShownStep);
+		text += "\n\n"+ describeRun(mComparedAlgorithm, mComparedRunInfo, mShownComparedStep);
+		mTxt_explanation.setText(text);
+	}
+	
+	private static String describeRun(AbstractAlgorithm algorithm, String info, Pair<ArrayList<Graph>, String> step) {
+		String text = algorithm.getAlgorithmName() +" ("+ info +")\n";
+		text += "step "+ (algorithm.getActualStep() + 1) +" of "+ algorithm.getStepCount() +"\n";
+		if(step != null && step.getR() != null)
+			text += step.getR();
+		return text;
+	}
+	
+	/**
+	 * returns the state of a finished algorithm with the time it needed and the memory it allocated
+	 */
+	private static String getRunInfo(AlgorithmRunner runner, boolean cancelled) {
+		String info = (cancelled ? "cancelled, " : "finished, ") + runner.getAlgorithm().getStepCount() +" steps";
+		info += ", "+ runner.getRunTime() +" ms";
+		if(runner.getAllocatedBytes() >= 0)
+			info += String.format(", %.1f MB allocated", runner.getAllocatedBytes() / (1024.0 * 1024.0));
+		return info;
+	}
+	
+	/**
+	 * shows the explanations of all steps up to the given one. the text area always holds a prefix of the log, so only
+	 * the difference to the currently shown text is appended or removed
+	 * @param log the explanation log of the algorithm
+	 * @param step the index of the step
+	 */
+	private void showExplanation(ExplanationLog log, int step) {
+		Document doc = mTxt_explanation.getDocument();
+		int shown = doc.getLength();
+		int end = log.getEnd(step);
+		
+		try {
+			if(end < shown)
+				doc.remove(end, shown - end);
+			else if(end > shown)
+				doc.insertString(shown, log.getText(shown, end), null);
+		} catch(BadLocationException e) {
+			mTxt_explanation.setText(log.getPrefix(step));
+		}
 	}
 	
 	/**
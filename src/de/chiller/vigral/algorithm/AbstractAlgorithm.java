@@ -2,7 +2,9 @@ package de.chiller.vigral.algorithm;
 
 import java.util.ArrayList;
 
+import de.chiller.vigral.graph.CompactGraph;
 import de.chiller.vigral.graph.Graph;
+import de.chiller.vigral.graph.GraphChanges;
 import de.chiller.vigral.util.Pair;
 
 
@@ -20,21 +22,35 @@ public abstract class AbstractAlgorithm implements Algorithm {
 	 */
 	protected Graph mGraph;
 	/**
-	 * a list of graphs that represent the single steps
+	 * the snapshot of the graph for the inner loops of the algorithm, taken when it is requested first
 	 */
-	protected ArrayList<Pair<ArrayList<Graph>, String>> mSteps;
+	private CompactGraph mCompactGraph;
+	/**
+	 * the recorded steps of the algorithm
+	 */
+	protected StepHistory mSteps;
 
 	/**
 	 * indicates the step actually at
 	 */
 	protected int mActualStep;
+	/**
+	 * the step that has been actual before the last one was requested
+	 */
+	private int mPreviousStep;
+	
+	/**
+	 * the runner that performs the algorithm in the background or null if it is performed directly
+	 */
+	private AlgorithmRunner mRunner;
 	
 	/**
 	 * constructor
 	 */
 	public AbstractAlgorithm() {
-		mSteps = new ArrayList<Pair<ArrayList<Graph>, String>>();
+		mSteps = new StepHistory();
 		mActualStep = -1;
+		mPreviousStep = -1;
 	}
 	
 	/**
@@ -43,12 +59,87 @@ public abstract class AbstractAlgorithm implements Algorithm {
 	 */
 	public void setGraph(Graph g) {
 		mGraph = g;
+		mCompactGraph = null;
 		mGraph.resetStates();
 		mSteps.clear();
 		ArrayList<Graph> graphs = new ArrayList<Graph>();
-		graphs.add(new Graph(mGraph));
-		mSteps.add(new Pair<ArrayList<Graph>, String>(graphs, "The initial Graph"));
+		graphs.add(mGraph);
+		mSteps.add(graphs, "The initial Graph");
 		mActualStep = -1;
+		mPreviousStep = -1;
+	}
+	
+	/**
+	 * releases the recorded steps and deletes their log file. the algorithm must not be used afterwards, steps it still
+	 * adds are ignored
+	 */
+	public void dispose() {
+		mSteps.dispose();
+	}
+	
+	/**
+	 * returns the graph in compressed sparse row format. the indices of the snapshot map back to the vertices and
+	 * edges of mGraph, whose states have to be changed before adding a step. the snapshot is taken once per graph, so it
+	 * does not contain vertices or edges the algorithm adds to mGraph later
+	 * @return returns the snapshot of the graph or null, if no graph has been set
+	 */
+	protected CompactGraph getCompactGraph() {
+		if(mCompactGraph == null && mGraph != null)
+			mCompactGraph = new CompactGraph(mGraph);
+		return mCompactGraph;
+	}
+	
+	/**
+	 * sets the runner that performs the algorithm. it is told about every recorded step and can cancel the algorithm
+	 * @param runner the runner or null
+	 */
+	void setRunner(AlgorithmRunner runner) {
+		mRunner = runner;
+	}
+	
+	/**
+	 * indicates if the user wants to cancel the algorithm. long running algorithms can check this between steps,
+	 * adding a step of a cancelled algorithm stops it anyway
+	 * @return returns true if the algorithm should stop
+	 */
+	protected boolean isCancelled() {
+		return mRunner != null && mRunner.isCancelRequested();
+	}
+	
+	/**
+	 * getter for the number of the steps recorded so far
+	 * @return returns the number of steps
+	 */
+	public int getStepCount() {
+		return mSteps.size();
+	}
+	
+	/**
+	 * getter for the step actually at
+	 * @return returns the index of the actual step or -1 if no step has been requested yet
+	 */
+	public int getActualStep() {
+		return mActualStep;
+	}
+	
+	/**
+	 * collects the vertices and edges that have changed between the previously requested step and the actual one, so
+	 * the viewers only have to update them
+	 * @return returns the changes of every graph of the step or null, if they are not known (e.g. because the structure
+	 * of a graph has changed)
+	 */
+	public ArrayList<GraphChanges> getChanges() {
+		if(mPreviousStep < 0)
+			return null;
+		return mSteps.getChanges(mPreviousStep, mActualStep);
+	}
+	
+	/**
+	 * getter for the explanations of the steps. the explanation of all steps up to the actual one is a prefix of this log
+	 * @return returns the explanation log
+	 */
+	public ExplanationLog getExplanationLog() {
+		return mSteps.getExplanationLog();
 	}
 	
 	/**
@@ -57,6 +148,7 @@ public abstract class AbstractAlgorithm implements Algorithm {
 	public Pair<ArrayList<Graph>, String> getFirstStep() {
 		if(mActualStep == 0)
 			return null;
+		mPreviousStep = mActualStep;
 		mActualStep = 0;
 		return mSteps.get(mActualStep);
 	}
@@ -66,7 +158,7 @@ public abstract class AbstractAlgorithm implements Algorithm {
 	 */
 	public Pair<ArrayList<Graph>, String> getPreviousStep() {
 		if(mActualStep > 0)
-			mActualStep--;
+			mPreviousStep = mActualStep--;
 		else
 			return null;
 		return mSteps.get(mActualStep);
@@ -77,7 +169,7 @@ public abstract class AbstractAlgorithm implements Algorithm {
 	 */
 	public Pair<ArrayList<Graph>, String> getNextStep() {
 		if(mActualStep < mSteps.size() - 1)
-			mActualStep++;
+			mPreviousStep = mActualStep++;
 		else
 			return null;
 		return mSteps.get(mActualStep);	
@@ -90,10 +182,26 @@ public abstract class AbstractAlgorithm implements Algorithm {
 		if(mActualStep == mSteps.size()-1)
 			return null;
 			
+		mPreviousStep = mActualStep;
 		mActualStep = mSteps.size()-1;
 		return mSteps.get(mActualStep);
 	}
 	
+	/**
+	 * returns the step with the given index of the algorithm as a graph object. the step is rebuilt from the nearest
+	 * keyframe, so seeking does not depend on the distance to the actual step
+	 * @param index the index of the step
+	 * @return returns the step or null, if it is the actual step or there is no step with this index
+	 */
+	public Pair<ArrayList<Graph>, String> getStep(int index) {
+		if(index < 0 || index >= mSteps.size() || index == mActualStep)
+			return null;
+		
+		mPreviousStep = mActualStep;
+		mActualStep = index;
+		return mSteps.get(mActualStep);
+	}
+	
 	/**
 	 * adds a new copy of the graph with an empty explanation to the list of the steps
 	 */
@@ -140,16 +248,11 @@ public abstract class AbstractAlgorithm implements Algorithm {
 		// the list of graphs to be added
 		ArrayList<Graph> graphs = new ArrayList<Graph>();
 		
-		// put a copy of the given graph in that list
-		graphs.add(new Graph(g));
+		// put the given graph in that list (the step history records only the changes)
+		graphs.add(g);
 		
-		String tmp = "";
-		if(!mSteps.isEmpty())
-			tmp = mSteps.get(mSteps.size()-1).getR() +"\n\n";
-
-		tmp += explanation;
 		// add the list of graphs with the explanation to the list of steps
-		mSteps.add(new Pair<ArrayList<Graph>, String>(graphs, tmp));
+		recordStep(graphs, explanation);
 	}
 	
 	
@@ -164,22 +267,28 @@ public abstract class AbstractAlgorithm implements Algorithm {
 		// the list of graphs to be added
 		ArrayList<Graph> graphs = new ArrayList<Graph>();
 		
-		// put a copy of each graph in that list
-		graphs.add(new Graph(g));
-		graphs.add(new Graph(h));
+		// put each graph in that list (the step history records only the changes)
+		graphs.add(g);
+		graphs.add(h);
 		
-		String tmp = "";
-		if(!mSteps.isEmpty()) 
-			tmp = mSteps.get(mSteps.size()-1).getR() +"\n\n";
-		
-		tmp += explanation;
 		// add the list of graphs with the explanation to the list of steps
-		mSteps.add(new Pair<ArrayList<Graph>, String>(graphs, tmp));
+		recordStep(graphs, explanation);
 	}
 	
 	
-
-	
-	
+	/**
+	 * adds the graphs to the list of steps and tells the runner about it
+	 * @param graphs the graphs of the step
+	 * @param explanation the explanation of that step
+	 */
+	private void recordStep(ArrayList<Graph> graphs, String explanation) {
+		if(isCancelled())
+			throw new AlgorithmCancelledException();
+		
+		mSteps.add(graphs, explanation);
+		
+		if(mRunner != null)
+			mRunner.stepAdded(mSteps.size());
+	}
 
 }
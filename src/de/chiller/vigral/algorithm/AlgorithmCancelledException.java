@@ -0,0 +1,20 @@
+package de.chiller.vigral.algorithm;
+
+
+/**
+ * thrown when a step is added to an algorithm that has been cancelled by the user. it stops the algorithm, the steps
+ * recorded before stay available. like ThreadDeath it is an Error, so an algorithm that catches every Exception around
+ * its work does not swallow the cancellation by accident
+ * @author Simon Schiller
+ *
+ */
+@SuppressWarnings("serial")
+public class AlgorithmCancelledException extends Error {
+
+	/**
+	 * constructs the exception
+	 */
+	public AlgorithmCancelledException() {
+		super("the algorithm has been cancelled");
+	}
+}
@@ -0,0 +1,165 @@
+package de.chiller.vigral.algorithm;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.SwingWorker;
+
+
+/**
+ * performs an algorithm on a worker thread, so the user interface does not freeze while the algorithm is running.
+ * the recorded steps can be shown while the algorithm is still running and the listener is told about the progress
+ * on the event dispatch thread. the runner measures the time the algorithm needed and the memory it allocated, so
+ * several algorithms performed at the same time can be compared
+ * @author Simon Schiller
+ *
+ */
+public class AlgorithmRunner extends SwingWorker<Void, Integer> {
+
+	/**
+	 * listener that is informed about the progress of an algorithm. all methods are called on the event dispatch thread
+	 * @author Simon Schiller
+	 *
+	 */
+	public interface ProgressListener {
+
+		/**
+		 * called when new steps have been recorded
+		 * @param stepCount the number of steps recorded so far
+		 */
+		public void onProgress(int stepCount);
+
+		/**
+		 * called when the algorithm has stopped
+		 * @param cancelled true if the algorithm has been cancelled by the user
+		 * @param error the exception thrown by the algorithm or null if it finished without errors
+		 */
+		public void onFinished(boolean cancelled, Exception error);
+	}
+
+
+	private AbstractAlgorithm mAlgorithm;
+	private ProgressListener mListener;
+	private volatile boolean mCancelRequested;
+	private boolean mCancelled;
+	private long mRunTime = -1;
+	private long mAllocatedBytes = -1;
+
+
+	/**
+	 * constructs a runner. the graph and the requirements of the algorithm have to be set before
+	 * @param algorithm the algorithm to perform
+	 * @param listener the listener that is informed about the progress
+	 */
+	public AlgorithmRunner(AbstractAlgorithm algorithm, ProgressListener listener) {
+		mAlgorithm = algorithm;
+		mListener = listener;
+		mCancelRequested = false;
+		mCancelled = false;
+		mAlgorithm.setRunner(this);
+	}
+
+	/**
+	 * getter for the algorithm that is performed
+	 * @return returns the algorithm
+	 */
+	public AbstractAlgorithm getAlgorithm() {
+		return mAlgorithm;
+	}
+
+	/**
+	 * tells the algorithm to stop. it stops at the latest when it adds its next step
+	 */
+	public void requestCancel() {
+		mCancelRequested = true;
+	}
+
+	/**
+	 * indicates if the algorithm should stop
+	 * @return returns true if the user has cancelled the algorithm
+	 */
+	public boolean isCancelRequested() {
+		return mCancelRequested;
+	}
+
+	/**
+	 * called by the algorithm (on the worker thread) after a step has been recorded
+	 * @param stepCount the number of steps recorded so far
+	 */
+	void stepAdded(int stepCount) {
+		publish(stepCount);
+	}
+
+	@Override
+	protected Void doInBackground() throws Exception {
+		long start = System.nanoTime();
+		long allocated = getThreadAllocatedBytes();
+		try {
+			mAlgorithm.perform();
+			// an algorithm may also stop by itself after checking isCancelled
+			mCancelled = mCancelRequested;
+		} catch(AlgorithmCancelledException e) {
+			mCancelled = true;
+		} finally {
+			mRunTime = (System.nanoTime() - start) / 1000000;
+			if(allocated >= 0)
+				mAllocatedBytes = getThreadAllocatedBytes() - allocated;
+		}
+		return null;
+	}
+
+	/**
+	 * getter for the time the algorithm needed
+	 * @return returns the time in milliseconds or -1, if the algorithm has not finished yet
+	 */
+	public long getRunTime() {
+		return mRunTime;
+	}
+
+	/**
+	 * getter for the memory the algorithm allocated on its thread, including the recorded steps
+	 * @return returns the number of bytes or -1, if the algorithm has not finished yet or the jvm cannot measure it
+	 */
+	public long getAllocatedBytes() {
+		return mAllocatedBytes;
+	}
+
+	/**
+	 * returns the number of bytes allocated by the current thread so far or -1, if the jvm does not support it
+	 */
+	private static long getThreadAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(!(bean instanceof com.sun.management.ThreadMXBean))
+			return -1;
+
+		com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+		if(!sunBean.isThreadAllocatedMemorySupported() || !sunBean.isThreadAllocatedMemoryEnabled())
+			return -1;
+		return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	@Override
+	protected void process(List<Integer> chunks) {
+		// only the latest number of steps is of interest
+		mListener.onProgress(chunks.get(chunks.size()-1));
+	}
+
+	@Override
+	protected void done() {
+		mAlgorithm.setRunner(null);
+
+		Exception error = null;
+		try {
+			get();
+		} catch(ExecutionException e) {
+			error = (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+		} catch(InterruptedException e) {
+			error = e;
+		}
+
+		mListener.onProgress(mAlgorithm.getStepCount());
+		mListener.onFinished(mCancelled || mCancelRequested, error);
+	}
+}
@@ -0,0 +1,122 @@
+package de.chiller.vigral.algorithm;
+
+import java.util.Arrays;
+
+
+/**
+ * an append-only log of the explanations of the steps of an algorithm. all explanations are stored in one shared
+ * buffer, separated by an empty line. each step only knows where its own text starts and ends, so the explanation
+ * of all steps up to a given step is a prefix of the buffer and never has to be copied into every step.
+ * the log can be read while the algorithm is still appending to it on another thread.
+ * @author Simon Schiller
+ *
+ */
+public class ExplanationLog {
+
+	private static final String SEPARATOR = "\n\n";
+
+	/**
+	 * the explanations of all steps
+	 */
+	private StringBuilder mBuffer;
+	/**
+	 * the start and end offsets of the single explanations in the buffer
+	 */
+	private int[] mStarts;
+	private int[] mEnds;
+	private int mSize;
+
+
+	/**
+	 * constructs an empty log
+	 */
+	public ExplanationLog() {
+		mBuffer = new StringBuilder();
+		mStarts = new int[16];
+		mEnds = new int[16];
+		mSize = 0;
+	}
+
+	/**
+	 * removes all explanations
+	 */
+	public synchronized void clear() {
+		mBuffer.setLength(0);
+		mSize = 0;
+	}
+
+	/**
+	 * getter for the number of explanations
+	 * @return returns the number of explanations in the log
+	 */
+	public synchronized int size() {
+		return mSize;
+	}
+
+	/**
+	 * appends the explanation of a new step
+	 * @param explanation the explanation of the step
+	 * @return returns the index of that step
+	 */
+	public synchronized int append(String explanation) {
+		if(mSize == mStarts.length) {
+			mStarts = Arrays.copyOf(mStarts, 2 * mSize);
+			mEnds = Arrays.copyOf(mEnds, 2 * mSize);
+		}
+
+		if(mSize > 0)
+			mBuffer.append(SEPARATOR);
+
+		mStarts[mSize] = mBuffer.length();
+		mBuffer.append(explanation);
+		mEnds[mSize] = mBuffer.length();
+
+		return mSize++;
+	}
+
+	/**
+	 * getter for the explanation of a single step
+	 * @param index the index of the step
+	 * @return returns the explanation of only that step
+	 */
+	public synchronized String getExplanation(int index) {
+		checkIndex(index);
+		return mBuffer.substring(mStarts[index], mEnds[index]);
+	}
+
+	/**
+	 * getter for the end of the explanation of a step in the buffer. the explanations of all steps up to and including
+	 * the given one are the buffer from 0 to this offset
+	 * @param index the index of the step
+	 * @return returns the offset of the end of the explanation
+	 */
+	public synchronized int getEnd(int index) {
+		checkIndex(index);
+		return mEnds[index];
+	}
+
+	/**
+	 * returns a part of the buffer
+	 * @param start the start offset (inclusive)
+	 * @param end the end offset (exclusive)
+	 * @return returns the text between the offsets
+	 */
+	public synchronized String getText(int start, int end) {
+		return mBuffer.substring(start, end);
+	}
+
+	/**
+	 * returns the explanations of all steps up to and including the given step
+	 * @param index the index of the step
+	 * @return returns the cumulative explanation
+	 */
+	public synchronized String getPrefix(int index) {
+		return getText(0, getEnd(index));
+	}
+
+
+	private void checkIndex(int index) {
+		if(index < 0 || index >= mSize)
+			throw new IndexOutOfBoundsException("Index: "+ index +", Size: "+ mSize);
+	}
+}
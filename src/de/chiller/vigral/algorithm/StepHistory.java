@@ -0,0 +1,820 @@
+package de.chiller.vigral.algorithm;
+
+import java.awt.Color;
+import java.awt.Paint;
+import java.awt.geom.Point2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+import de.chiller.vigral.graph.Edge;
+import de.chiller.vigral.graph.ElementState;
+import de.chiller.vigral.graph.Graph;
+import de.chiller.vigral.graph.GraphChanges;
+import de.chiller.vigral.graph.Vertex;
+import de.chiller.vigral.util.Pair;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+
+/**
+ * stores the steps of an algorithm. instead of a full copy of every graph of every step only the changed attributes
+ * of the vertices and edges are recorded. a full copy (keyframe) is stored every KEYFRAME_INTERVAL steps and whenever
+ * the structure of a graph changes. a step is rebuilt by replaying the changes from the nearest keyframe. a keyframe
+ * that only ends the interval keeps its changes to the previous step as well, so the changed elements between any two
+ * steps with the same structure are known and the viewers only have to update them.
+ * steps can be read while the algorithm is still recording new ones on another thread.
+ * if the recorded steps need more heap than the budget allows, the oldest keyframes together with their changes are
+ * moved to an append-only log file. they are read back through the channel of the file when they are requested, a
+ * memory mapped buffer would keep the file from being deleted on some systems.
+ * keyframes whose elements have custom paints other than plain colors cannot be written and stay on the heap.
+ * the log file is deleted by clear and dispose, a history that is not needed anymore has to be disposed.
+ * @author Simon Schiller
+ *
+ */
+public class StepHistory {
+
+	/**
+	 * the maximum number of steps between two keyframes
+	 */
+	private static final int KEYFRAME_INTERVAL = 64;
+
+	/**
+	 * the estimated heap usage of an element of a keyframe and of a single change
+	 */
+	private static final int ELEMENT_BYTES = 256;
+	private static final int CHANGE_BYTES = 96;
+
+	/**
+	 * the default heap budget of a step history: a quarter of the heap, but not more than 256 MB
+	 */
+	public static final long DEFAULT_HEAP_BUDGET = Math.min(256L * 1024 * 1024, Runtime.getRuntime().maxMemory() / 4);
+
+	/**
+	 * the recorded steps
+	 */
+	private ArrayList<Step> mSteps;
+
+	/**
+	 * the explanations of the recorded steps
+	 */
+	private ExplanationLog mExplanations;
+
+	/**
+	 * the graphs of the last recorded step. new steps are compared against them
+	 */
+	private ArrayList<Graph> mLast;
+
+	/**
+	 * the graphs of the step that has been rebuilt last, used to replay forward without going back to the keyframe
+	 */
+	private ArrayList<Graph> mCursor;
+	private int mCursorIndex;
+
+	/**
+	 * the heap the steps in mSteps may use, before they are moved to the log file
+	 */
+	private long mHeapBudget;
+	private long mHeapBytes;
+	/**
+	 * the index of the keyframe the next block to move to the log file starts with, and the number of moved steps
+	 */
+	private int mNextToSpill;
+	private int mSpilledCount;
+	/**
+	 * the log file and its channel, created when the first steps are moved
+	 */
+	private File mLogFile;
+	private RandomAccessFile mLog;
+	private boolean mLogFailed;
+	/**
+	 * the block of the log file that has been read last and its steps
+	 */
+	private Block mLoadedBlock;
+	private ArrayList<Step> mLoadedSteps;
+	/**
+	 * true if the history has been disposed, new steps are ignored then
+	 */
+	private boolean mDisposed;
+
+
+	/**
+	 * constructs an empty step history with the default heap budget
+	 */
+	public StepHistory() {
+		this(DEFAULT_HEAP_BUDGET);
+	}
+
+	/**
+	 * constructs an empty step history
+	 * @param heapBudget the number of bytes the steps may use on the heap, before they are moved to a file
+	 */
+	public StepHistory(long heapBudget) {
+		mSteps = new ArrayList<Step>();
+		mExplanations = new ExplanationLog();
+		mHeapBudget = heapBudget;
+		clear();
+	}
+
+	/**
+	 * removes all steps and deletes the log file
+	 */
+	public synchronized void clear() {
+		mSteps.clear();
+		mExplanations.clear();
+		mLast = null;
+		mCursor = null;
+		mCursorIndex = -1;
+		mHeapBytes = 0;
+		mNextToSpill = 0;
+		mSpilledCount = 0;
+		mLoadedBlock = null;
+		mLoadedSteps = null;
+		closeLog();
+	}
+
+	/**
+	 * removes all steps and deletes the log file. steps that are recorded afterwards (e.g. by an algorithm that has not
+	 * noticed its cancellation yet) are ignored, so no new log file is created
+	 */
+	public synchronized void dispose() {
+		mDisposed = true;
+		clear();
+	}
+
+	/**
+	 * getter for the number of steps that have been moved to the log file
+	 * @return returns the number of steps that are not on the heap
+	 */
+	public synchronized int getSpilledCount() {
+		return mSpilledCount;
+	}
+
+	/**
+	 * getter for the number of recorded steps
+	 * @return returns the number of steps
+	 */
+	public synchronized int size() {
+		return mSteps.size();
+	}
+
+	/**
+	 * indicates if there are no steps recorded
+	 * @return returns true if the history is empty and false otherwise
+	 */
+	public synchronized boolean isEmpty() {
+		return mSteps.isEmpty();
+	}
+
+	/**
+	 * getter for the explanation of a step
+	 * @param index the index of the step
+	 * @return returns the explanation of only that step
+	 */
+	public synchronized String getExplanation(int index) {
+		return mExplanations.getExplanation(index);
+	}
+
+	/**
+	 * getter for the explanations of all steps
+	 * @return returns the explanation log
+	 */
+	public ExplanationLog getExplanationLog() {
+		return mExplanations;
+	}
+
+	/**
+	 * records a new step. the given graphs are not stored themselves, so they can be modified afterwards
+	 * @param graphs the graphs of the step
+	 * @param explanation the explanation of the step
+	 */
+	public synchronized void add(ArrayList<Graph> graphs, String explanation) {
+		if(mDisposed)
+			return;
+
+		Step step = new Step();
+
+		boolean sameStructure = sameStructure(graphs);
+		if(sameStructure) {
+			step.mChanges = new ArrayList<ArrayList<Change>>();
+			for(int i = 0; i < graphs.size(); i++) {
+				ArrayList<Change> changes = diff(graphs.get(i), mLast.get(i));
+				step.mChanges.add(changes);
+				mHeapBytes += (long) CHANGE_BYTES * changes.size();
+			}
+		}
+
+		if(!sameStructure || mSteps.size() - mSteps.get(mSteps.size()-1).mKeyframe >= KEYFRAME_INTERVAL) {
+			step.mKeyframe = mSteps.size();
+			step.mGraphs = new ArrayList<Graph>();
+			mLast = new ArrayList<Graph>();
+			for(Graph g : graphs) {
+				step.mGraphs.add(new Graph(g));
+				mLast.add(new Graph(g));
+				mHeapBytes += (long) ELEMENT_BYTES * (g.getVertexCount() + g.getEdgeCount());
+			}
+		}
+		else {
+			step.mKeyframe = mSteps.get(mSteps.size()-1).mKeyframe;
+		}
+
+		mSteps.add(step);
+		mExplanations.append(explanation);
+
+		if(mHeapBytes > mHeapBudget && !mLogFailed)
+			spill();
+	}
+
+	/**
+	 * rebuilds the step with the given index
+	 * @param index the index of the step
+	 * @return returns copies of the graphs of that step and the explanation of only that step
+	 */
+	public synchronized Pair<ArrayList<Graph>, String> get(int index) {
+		Step step = mSteps.get(index);
+
+		// go back to the keyframe, if the cursor is behind the keyframe or ahead of the requested step
+		if(mCursor == null || mCursorIndex > index || mCursorIndex < step.mKeyframe) {
+			mCursor = new ArrayList<Graph>();
+			for(Graph g : getStep(step.mKeyframe).mGraphs)
+				mCursor.add(new Graph(g));
+			mCursorIndex = step.mKeyframe;
+		}
+
+		// replay the changes up to the requested step
+		while(mCursorIndex < index) {
+			mCursorIndex++;
+			ArrayList<ArrayList<Change>> changes = getStep(mCursorIndex).mChanges;
+			for(int i = 0; i < changes.size(); i++)
+				for(Change c : changes.get(i))
+					c.apply(mCursor.get(i));
+		}
+
+		ArrayList<Graph> graphs = new ArrayList<Graph>();
+		for(Graph g : mCursor)
+			graphs.add(new Graph(g));
+
+		return new Pair<ArrayList<Graph>, String>(graphs, mExplanations.getExplanation(index));
+	}
+
+	/**
+	 * collects the vertices and edges whose attributes differ between two steps
+	 * @param from the index of one step
+	 * @param to the index of the other step
+	 * @return returns the changes of every graph or null, if the structure of the graphs differs between the steps or
+	 * they are more than KEYFRAME_INTERVAL steps apart
+	 */
+	public synchronized ArrayList<GraphChanges> getChanges(int from, int to) {
+		int start = Math.min(from, to);
+		int end = Math.max(from, to);
+		if(start < 0 || end >= mSteps.size() || end - start > KEYFRAME_INTERVAL)
+			return null;
+
+		ArrayList<GraphChanges> result = new ArrayList<GraphChanges>();
+		for(int i = start + 1; i <= end; i++) {
+			ArrayList<ArrayList<Change>> changes = getStep(i).mChanges;
+			if(changes == null)
+				return null;
+
+			for(int j = 0; j < changes.size(); j++) {
+				if(result.size() <= j)
+					result.add(new GraphChanges());
+				for(Change c : changes.get(j))
+					c.addTo(result.get(j));
+			}
+		}
+		return result;
+	}
+
+
+	/**
+	 * returns the step with the given index. a step that has been moved to the log file is read back with the other
+	 * steps of its block
+	 */
+	private Step getStep(int index) {
+		Step step = mSteps.get(index);
+		if(step.mBlock == null)
+			return step;
+
+		if(mLoadedBlock != step.mBlock) {
+			try {
+				mLoadedSteps = readBlock(step.mBlock);
+			} catch(IOException e) {
+				throw new IllegalStateException("cannot read step "+ index +" from "+ mLogFile, e);
+			}
+			mLoadedBlock = step.mBlock;
+		}
+		return mLoadedSteps.get(index - step.mKeyframe);
+	}
+
+	/**
+	 * moves the oldest keyframes together with their changes to the log file, until the steps on the heap fit into the
+	 * budget again. the keyframe that is recorded at the moment always stays on the heap. a block that cannot be
+	 * written because of its paints stays on the heap and the following blocks are moved instead
+	 */
+	private void spill() {
+		int current = mSteps.get(mSteps.size()-1).mKeyframe;
+		int start = mNextToSpill;
+		while(mHeapBytes > mHeapBudget && start < current) {
+			int end = start + 1;
+			while(mSteps.get(end).mKeyframe == start)
+				end++;
+
+			try {
+				Block block = writeBlock(start, end);
+				// all steps of the block share one placeholder, so only a reference per step is left on the heap
+				Step placeholder = new Step();
+				placeholder.mKeyframe = start;
+				placeholder.mBlock = block;
+				for(int i = start; i < end; i++) {
+					mHeapBytes -= estimate(mSteps.get(i));
+					mSteps.set(i, placeholder);
+				}
+				mSpilledCount += end - start;
+			} catch(NotSerializableException e) {
+				// nothing has been written, only this block stays on the heap
+			} catch(IOException e) {
+				// the log file cannot be written at all, so all further steps just stay on the heap
+				e.printStackTrace();
+				mLogFailed = true;
+				break;
+			}
+			start = end;
+		}
+		mNextToSpill = start;
+	}
+
+	private static long estimate(Step step) {
+		long bytes = 0;
+		if(step.mGraphs != null)
+			for(Graph g : step.mGraphs)
+				bytes += (long) ELEMENT_BYTES * (g.getVertexCount() + g.getEdgeCount());
+		if(step.mChanges != null)
+			for(ArrayList<Change> changes : step.mChanges)
+				bytes += (long) CHANGE_BYTES * changes.size();
+		return bytes;
+	}
+
+	/**
+	 * appends the steps from start (a keyframe) up to end (exclusive) to the log file. the steps are written into memory
+	 * first, so a NotSerializableException leaves the log file untouched. a failed write is cut off the log file again
+	 */
+	private Block writeBlock(int start, int end) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		Step keyframe = mSteps.get(start);
+		out.writeInt(keyframe.mGraphs.size());
+		for(Graph g : keyframe.mGraphs)
+			writeGraph(out, g);
+		out.writeBoolean(keyframe.mChanges != null);
+		if(keyframe.mChanges != null)
+			writeChanges(out, keyframe.mChanges);
+
+		for(int i = start + 1; i < end; i++)
+			writeChanges(out, mSteps.get(i).mChanges);
+		out.close();
+
+		if(mLog == null) {
+			mLogFile = File.createTempFile("vigral-steps", ".log");
+			mLogFile.deleteOnExit();
+			mLog = new RandomAccessFile(mLogFile, "rw");
+		}
+
+		Block block = new Block();
+		block.mOffset = mLog.length();
+		block.mLength = bytes.size();
+		block.mCount = end - start;
+
+		FileChannel channel = mLog.getChannel();
+		ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+		long position = block.mOffset;
+		try {
+			while(buf.hasRemaining())
+				position += channel.write(buf, position);
+		} catch(IOException e) {
+			mLog.setLength(block.mOffset);
+			throw e;
+		}
+
+		return block;
+	}
+
+	/**
+	 * reads the steps of a block back from the log file
+	 */
+	private ArrayList<Step> readBlock(Block block) throws IOException {
+		byte[] bytes = new byte[block.mLength];
+		ByteBuffer buf = ByteBuffer.wrap(bytes);
+		FileChannel channel = mLog.getChannel();
+		long position = block.mOffset;
+		while(buf.hasRemaining()) {
+			int read = channel.read(buf, position);
+			if(read < 0)
+				throw new IOException("the log file ends inside of a block");
+			position += read;
+		}
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+
+		ArrayList<Step> steps = new ArrayList<Step>(block.mCount);
+		Step first = new Step();
+		first.mGraphs = new ArrayList<Graph>();
+		int graphCount = in.readInt();
+		for(int i = 0; i < graphCount; i++)
+			first.mGraphs.add(readGraph(in));
+		if(in.readBoolean())
+			first.mChanges = readChanges(in, graphCount);
+		steps.add(first);
+
+		for(int i = 1; i < block.mCount; i++) {
+			Step step = new Step();
+			step.mChanges = readChanges(in, graphCount);
+			steps.add(step);
+		}
+
+		return steps;
+	}
+
+	private static void writeChanges(DataOutput out, ArrayList<ArrayList<Change>> changes) throws IOException {
+		for(ArrayList<Change> list : changes) {
+			out.writeInt(list.size());
+			for(Change c : list)
+				c.write(out);
+		}
+	}
+
+	private static ArrayList<ArrayList<Change>> readChanges(DataInput in, int graphCount) throws IOException {
+		ArrayList<ArrayList<Change>> changes = new ArrayList<ArrayList<Change>>(graphCount);
+		for(int i = 0; i < graphCount; i++) {
+			int size = in.readInt();
+			ArrayList<Change> list = new ArrayList<Change>(size);
+			for(int j = 0; j < size; j++)
+				list.add(Change.readChange(in));
+			changes.add(list);
+		}
+		return changes;
+	}
+
+	private void closeLog() {
+		if(mLog != null) {
+			try {
+				mLog.close();
+			} catch(IOException e) {
+				e.printStackTrace();
+			}
+			mLogFile.delete();
+		}
+		mLog = null;
+		mLogFile = null;
+		mLogFailed = false;
+	}
+
+
+	private static void writeGraph(DataOutput out, Graph g) throws IOException {
+		out.writeInt(g.getVertexCount());
+		for(Vertex v : g.getVertices()) {
+			out.writeInt(v.getId());
+			writeString(out, v.getLabel());
+			writeString(out, v.getLabelAddition());
+			out.writeDouble(v.getLocation().getX());
+			out.writeDouble(v.getLocation().getY());
+			writeState(out, v.getState());
+			writePaint(out, v.getCustomColor());
+		}
+
+		out.writeInt(g.getEdgeCount());
+		for(Edge e : g.getEdges()) {
+			out.writeInt(e.getId());
+			out.writeInt(e.getStartVertex().getId());
+			out.writeInt(e.getEndVertex().getId());
+			out.writeBoolean(e.isDirected());
+			out.writeDouble(e.getWeight());
+			out.writeDouble(e.getMinCapacity());
+			out.writeDouble(e.getMaxCapacity());
+			writeString(out, e.getCustomLabel());
+			writeState(out, e.getState());
+			writePaint(out, e.getCustomColor());
+		}
+	}
+
+	private static Graph readGraph(DataInput in) throws IOException {
+		Graph g = new Graph();
+
+		int vertexCount = in.readInt();
+		for(int i = 0; i < vertexCount; i++) {
+			int id = in.readInt();
+			String label = readString(in);
+			String addition = readString(in);
+			Point2D location = new Point2D.Double(in.readDouble(), in.readDouble());
+			Vertex v = Vertex.VertexFactory.getInstance().create(id, label, location);
+			v.setLabelAddition(addition);
+			v.setState(readState(in));
+			v.setCustomColor(readPaint(in));
+			g.addVertex(v);
+		}
+
+		int edgeCount = in.readInt();
+		for(int i = 0; i < edgeCount; i++) {
+			int id = in.readInt();
+			Vertex start = g.getVertexById(in.readInt());
+			Vertex end = g.getVertexById(in.readInt());
+			boolean directed = in.readBoolean();
+			Edge e = Edge.EdgeFactory.getInstance().create(id, in.readDouble(), in.readDouble(), in.readDouble(), start, end, directed);
+			e.setCustomLabel(readString(in));
+			e.setState(readState(in));
+			e.setCustomColor(readPaint(in));
+			g.addEdge(e, start, end, directed ? EdgeType.DIRECTED : EdgeType.UNDIRECTED);
+		}
+
+		return g;
+	}
+
+	private static void writeString(DataOutput out, String s) throws IOException {
+		out.writeBoolean(s != null);
+		if(s != null)
+			out.writeUTF(s);
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeState(DataOutput out, ElementState state) throws IOException {
+		out.writeByte(state == null ? -1 : state.ordinal());
+	}
+
+	private static ElementState readState(DataInput in) throws IOException {
+		int ordinal = in.readByte();
+		return ordinal < 0 ? null : ElementState.values()[ordinal];
+	}
+
+	/**
+	 * only colors can be written, other paints throw a NotSerializableException and keep their block on the heap
+	 */
+	private static void writePaint(DataOutput out, Paint paint) throws IOException {
+		if(paint == null) {
+			out.writeBoolean(false);
+			return;
+		}
+		if(paint.getClass() != Color.class)
+			throw new NotSerializableException(paint.getClass().getName());
+		out.writeBoolean(true);
+		out.writeInt(((Color) paint).getRGB());
+	}
+
+	private static Paint readPaint(DataInput in) throws IOException {
+		return in.readBoolean() ? new Color(in.readInt(), true) : null;
+	}
+
+
+	/**
+	 * checks if the given graphs have the same structure as the ones of the last recorded step, so only their changes
+	 * have to be recorded
+	 */
+	private boolean sameStructure(ArrayList<Graph> graphs) {
+		if(mLast == null || mLast.size() != graphs.size())
+			return false;
+
+		for(int i = 0; i < graphs.size(); i++)
+			if(!sameStructure(graphs.get(i), mLast.get(i)))
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * checks if both graphs consist of the same vertices and edges (compared by id)
+	 */
+	private static boolean sameStructure(Graph g, Graph last) {
+		if(g.getVertexCount() != last.getVertexCount() || g.getEdgeCount() != last.getEdgeCount())
+			return false;
+
+		for(Vertex v : g.getVertices())
+			if(last.getVertexById(v.getId()) == null)
+				return false;
+
+		for(Edge e : g.getEdges()) {
+			Edge o = last.getEdgeById(e.getId());
+			if(o == null || o.isDirected() != e.isDirected()
+					|| o.getStartVertex().getId() != e.getStartVertex().getId()
+					|| o.getEndVertex().getId() != e.getEndVertex().getId())
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * collects the changes between the last recorded graph and the given one and applies them to the last graph
+	 */
+	private static ArrayList<Change> diff(Graph g, Graph last) {
+		ArrayList<Change> changes = new ArrayList<Change>();
+
+		for(Vertex v : g.getVertices()) {
+			Vertex o = last.getVertexById(v.getId());
+			if(!VertexChange.matches(v, o)) {
+				Change c = new VertexChange(v);
+				c.apply(last);
+				changes.add(c);
+			}
+		}
+
+		for(Edge e : g.getEdges()) {
+			Edge o = last.getEdgeById(e.getId());
+			if(!EdgeChange.matches(e, o)) {
+				Change c = new EdgeChange(e);
+				c.apply(last);
+				changes.add(c);
+			}
+		}
+
+		changes.trimToSize();
+		return changes;
+	}
+
+	private static boolean equal(Object a, Object b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+
+
+	/**
+	 * a single recorded step. it holds a full copy of the graphs (keyframe), the changes to the previous step or both
+	 */
+	private static class Step {
+		private int mKeyframe;
+		private ArrayList<Graph> mGraphs;
+		private ArrayList<ArrayList<Change>> mChanges;
+		// the block of the log file the step has been moved to, null while it is on the heap
+		private Block mBlock;
+	}
+
+
+	/**
+	 * a keyframe and its following steps in the log file
+	 */
+	private static class Block {
+		private long mOffset;
+		private int mLength;
+		private int mCount;
+	}
+
+
+	/**
+	 * the attributes of a single element after a step
+	 */
+	private static abstract class Change {
+		protected int mId;
+		protected ElementState mState;
+		protected Paint mCustomColor;
+
+		abstract void apply(Graph g);
+
+		abstract void addTo(GraphChanges changes);
+
+		void write(DataOutput out) throws IOException {
+			out.writeInt(mId);
+			writeState(out, mState);
+			writePaint(out, mCustomColor);
+		}
+
+		void read(DataInput in) throws IOException {
+			mId = in.readInt();
+			mState = readState(in);
+			mCustomColor = readPaint(in);
+		}
+
+		static Change readChange(DataInput in) throws IOException {
+			Change c = in.readBoolean() ? new VertexChange() : new EdgeChange();
+			c.read(in);
+			return c;
+		}
+	}
+
+
+	private static class VertexChange extends Change {
+		private String mLabel;
+		private String mLabelAddition;
+		private Point2D mLocation;
+
+		private VertexChange() {}
+
+		private VertexChange(Vertex v) {
+			mId = v.getId();
+			mState = v.getState();
+			mCustomColor = v.getCustomColor();
+			mLabel = v.getLabel();
+			mLabelAddition = v.getLabelAddition();
+			mLocation = (Point2D) v.getLocation().clone();
+		}
+
+		private static boolean matches(Vertex v, Vertex o) {
+			return v.getState() == o.getState() && equal(v.getCustomColor(), o.getCustomColor())
+					&& equal(v.getLabel(), o.getLabel()) && equal(v.getLabelAddition(), o.getLabelAddition())
+					&& equal(v.getLocation(), o.getLocation());
+		}
+
+		@Override
+		void apply(Graph g) {
+			Vertex v = g.getVertexById(mId);
+			v.setState(mState);
+			v.setCustomColor(mCustomColor);
+			v.setLabel(mLabel);
+			v.setLabelAddition(mLabelAddition);
+			v.updateLocation((Point2D) mLocation.clone());
+		}
+
+		@Override
+		void addTo(GraphChanges changes) {
+			changes.addVertex(mId);
+		}
+
+		@Override
+		void write(DataOutput out) throws IOException {
+			out.writeBoolean(true);
+			super.write(out);
+			writeString(out, mLabel);
+			writeString(out, mLabelAddition);
+			out.writeDouble(mLocation.getX());
+			out.writeDouble(mLocation.getY());
+		}
+
+		@Override
+		void read(DataInput in) throws IOException {
+			super.read(in);
+			mLabel = readString(in);
+			mLabelAddition = readString(in);
+			mLocation = new Point2D.Double(in.readDouble(), in.readDouble());
+		}
+	}
+
+
+	private static class EdgeChange extends Change {
+		private String mCustomLabel;
+		private double mWeight;
+		private double mMinCapacity;
+		private double mMaxCapacity;
+
+		private EdgeChange() {}
+
+		private EdgeChange(Edge e) {
+			mId = e.getId();
+			mState = e.getState();
+			mCustomColor = e.getCustomColor();
+			mCustomLabel = e.getCustomLabel();
+			mWeight = e.getWeight();
+			mMinCapacity = e.getMinCapacity();
+			mMaxCapacity = e.getMaxCapacity();
+		}
+
+		private static boolean matches(Edge e, Edge o) {
+			return e.getState() == o.getState() && equal(e.getCustomColor(), o.getCustomColor())
+					&& equal(e.getCustomLabel(), o.getCustomLabel()) && e.getWeight() == o.getWeight()
+					&& e.getMinCapacity() == o.getMinCapacity() && e.getMaxCapacity() == o.getMaxCapacity();
+		}
+
+		@Override
+		void apply(Graph g) {
+			Edge e = g.getEdgeById(mId);
+			e.setState(mState);
+			e.setCustomColor(mCustomColor);
+			e.setCustomLabel(mCustomLabel);
+			e.setWeight(mWeight);
+			e.setMinCapacity(mMinCapacity);
+			e.setMaxCapacity(mMaxCapacity);
+		}
+
+		@Override
+		void addTo(GraphChanges changes) {
+			changes.addEdge(mId);
+		}
+
+		@Override
+		void write(DataOutput out) throws IOException {
+			out.writeBoolean(false);
+			super.write(out);
+			writeString(out, mCustomLabel);
+			out.writeDouble(mWeight);
+			out.writeDouble(mMinCapacity);
+			out.writeDouble(mMaxCapacity);
+		}
+
+		@Override
+		void read(DataInput in) throws IOException {
+			super.read(in);
+			mCustomLabel = readString(in);
+			mWeight = in.readDouble();
+			mMinCapacity = in.readDouble();
+			mMaxCapacity = in.readDouble();
+		}
+	}
+}
@@ -0,0 +1,287 @@
+package de.chiller.vigral.graph;
+
+import cern.colt.map.OpenIntIntHashMap;
+
+
+/**
+ * an immutable snapshot of a graph in compressed sparse row format. the vertices and edges are numbered from 0 and
+ * the adjacency is stored in flat int arrays, the weights and capacities of the edges in flat double arrays. this is
+ * much smaller than the maps of the graph and can be traversed without looking up any objects, so it is meant for the
+ * inner loops of algorithms. the vertex and edge objects of the graph are only needed again to change their state
+ * before a step is added.
+ *
+ * the outgoing arcs of a vertex are stored from getArcStart(v) (inclusive) to getArcEnd(v) (exclusive). a directed edge
+ * is an outgoing arc of its start vertex only, an undirected edge is an outgoing arc of both of its end vertices (like
+ * getOutEdges of the graph).
+ *
+ * the snapshot does not follow later changes of the graph. the weights and capacities are the ones at the time the
+ * snapshot has been taken.
+ * @author Simon Schiller
+ *
+ */
+public class CompactGraph {
+
+	/**
+	 * the vertices and edges of the graph by index
+	 */
+	private final Vertex[] mVertices;
+	private final Edge[] mEdges;
+
+	/**
+	 * the indices of the vertices and edges by id
+	 */
+	private final OpenIntIntHashMap mVertexIndices;
+	private final OpenIntIntHashMap mEdgeIndices;
+
+	/**
+	 * the first arc of every vertex. the arcs of vertex v are stored from mOffsets[v] to mOffsets[v+1]
+	 */
+	private final int[] mOffsets;
+	/**
+	 * the vertex an arc leads to
+	 */
+	private final int[] mTargets;
+	/**
+	 * the edge an arc belongs to
+	 */
+	private final int[] mArcEdges;
+
+	/**
+	 * the end vertices of the edges
+	 */
+	private final int[] mSources;
+	private final int[] mDests;
+	private final boolean[] mDirected;
+
+	/**
+	 * the weights and capacities of the edges
+	 */
+	private final double[] mWeights;
+	private final double[] mMinCapacities;
+	private final double[] mMaxCapacities;
+
+
+	/**
+	 * takes a snapshot of the given graph
+	 * @param g the graph
+	 */
+	public CompactGraph(Graph g) {
+		int vertexCount = g.getVertexCount();
+		int edgeCount = g.getEdgeCount();
+
+		mVertices = new Vertex[vertexCount];
+		mVertexIndices = new OpenIntIntHashMap(vertexCount);
+		int i = 0;
+		for(Vertex v : g.getVertices()) {
+			mVertices[i] = v;
+			mVertexIndices.put(v.getId(), i);
+			i++;
+		}
+
+		mEdges = new Edge[edgeCount];
+		mEdgeIndices = new OpenIntIntHashMap(edgeCount);
+		mSources = new int[edgeCount];
+		mDests = new int[edgeCount];
+		mDirected = new boolean[edgeCount];
+		mWeights = new double[edgeCount];
+		mMinCapacities = new double[edgeCount];
+		mMaxCapacities = new double[edgeCount];
+
+		// count the outgoing arcs of every vertex
+		mOffsets = new int[vertexCount + 1];
+		i = 0;
+		for(Edge e : g.getEdges()) {
+			mEdges[i] = e;
+			mEdgeIndices.put(e.getId(), i);
+			mSources[i] = mVertexIndices.get(e.getStartVertex().getId());
+			mDests[i] = mVertexIndices.get(e.getEndVertex().getId());
+			mDirected[i] = e.isDirected();
+			mWeights[i] = e.getWeight();
+			mMinCapacities[i] = e.getMinCapacity();
+			mMaxCapacities[i] = e.getMaxCapacity();
+
+			mOffsets[mSources[i] + 1]++;
+			if(!mDirected[i] && mSources[i] != mDests[i])
+				mOffsets[mDests[i] + 1]++;
+			i++;
+		}
+		for(int v = 0; v < vertexCount; v++)
+			mOffsets[v + 1] += mOffsets[v];
+
+		// fill the arcs, the edges keep the order of the graph within each vertex
+		int arcCount = mOffsets[vertexCount];
+		mTargets = new int[arcCount];
+		mArcEdges = new int[arcCount];
+		int[] next = new int[vertexCount];
+		System.arraycopy(mOffsets, 0, next, 0, vertexCount);
+		for(int e = 0; e < edgeCount; e++) {
+			int arc = next[mSources[e]]++;
+			mTargets[arc] = mDests[e];
+			mArcEdges[arc] = e;
+			if(!mDirected[e] && mSources[e] != mDests[e]) {
+				arc = next[mDests[e]]++;
+				mTargets[arc] = mSources[e];
+				mArcEdges[arc] = e;
+			}
+		}
+	}
+
+	/**
+	 * getter for the number of vertices
+	 * @return returns the number of vertices
+	 */
+	public int getVertexCount() {
+		return mVertices.length;
+	}
+
+	/**
+	 * getter for the number of edges
+	 * @return returns the number of edges
+	 */
+	public int getEdgeCount() {
+		return mEdges.length;
+	}
+
+	/**
+	 * getter for the number of arcs (every undirected edge that is no loop counts twice)
+	 * @return returns the number of arcs
+	 */
+	public int getArcCount() {
+		return mTargets.length;
+	}
+
+	/**
+	 * returns the vertex with the given index
+	 * @param v the index of the vertex
+	 * @return returns the vertex object of the graph
+	 */
+	public Vertex getVertex(int v) {
+		return mVertices[v];
+	}
+
+	/**
+	 * returns the edge with the given index
+	 * @param e the index of the edge
+	 * @return returns the edge object of the graph
+	 */
+	public Edge getEdge(int e) {
+		return mEdges[e];
+	}
+
+	/**
+	 * returns the index of the given vertex
+	 * @param v the vertex
+	 * @return returns the index of the vertex or -1, if the vertex is not part of the snapshot
+	 */
+	public int indexOf(Vertex v) {
+		return mVertexIndices.containsKey(v.getId()) ? mVertexIndices.get(v.getId()) : -1;
+	}
+
+	/**
+	 * returns the index of the given edge
+	 * @param e the edge
+	 * @return returns the index of the edge or -1, if the edge is not part of the snapshot
+	 */
+	public int indexOf(Edge e) {
+		return mEdgeIndices.containsKey(e.getId()) ? mEdgeIndices.get(e.getId()) : -1;
+	}
+
+	/**
+	 * returns the first outgoing arc of a vertex
+	 * @param v the index of the vertex
+	 * @return returns the index of the first arc
+	 */
+	public int getArcStart(int v) {
+		return mOffsets[v];
+	}
+
+	/**
+	 * returns the end of the outgoing arcs of a vertex
+	 * @param v the index of the vertex
+	 * @return returns the index after the last arc
+	 */
+	public int getArcEnd(int v) {
+		return mOffsets[v + 1];
+	}
+
+	/**
+	 * returns the number of outgoing arcs of a vertex
+	 * @param v the index of the vertex
+	 * @return returns the out degree
+	 */
+	public int getOutDegree(int v) {
+		return mOffsets[v + 1] - mOffsets[v];
+	}
+
+	/**
+	 * returns the vertex an arc leads to
+	 * @param arc the index of the arc
+	 * @return returns the index of the vertex
+	 */
+	public int getTarget(int arc) {
+		return mTargets[arc];
+	}
+
+	/**
+	 * returns the edge an arc belongs to
+	 * @param arc the index of the arc
+	 * @return returns the index of the edge
+	 */
+	public int getArcEdge(int arc) {
+		return mArcEdges[arc];
+	}
+
+	/**
+	 * returns the start vertex of an edge
+	 * @param e the index of the edge
+	 * @return returns the index of the vertex
+	 */
+	public int getSource(int e) {
+		return mSources[e];
+	}
+
+	/**
+	 * returns the end vertex of an edge
+	 * @param e the index of the edge
+	 * @return returns the index of the vertex
+	 */
+	public int getDest(int e) {
+		return mDests[e];
+	}
+
+	/**
+	 * indicates if an edge is directed
+	 * @param e the index of the edge
+	 * @return returns true if the edge is directed and false otherwise
+	 */
+	public boolean isDirected(int e) {
+		return mDirected[e];
+	}
+
+	/**
+	 * returns the weight of an edge
+	 * @param e the index of the edge
+	 * @return returns the weight at the time of the snapshot
+	 */
+	public double getWeight(int e) {
+		return mWeights[e];
+	}
+
+	/**
+	 * returns the minimal capacity of an edge
+	 * @param e the index of the edge
+	 * @return returns the minimal capacity at the time of the snapshot
+	 */
+	public double getMinCapacity(int e) {
+		return mMinCapacities[e];
+	}
+
+	/**
+	 * returns the maximal capacity of an edge
+	 * @param e the index of the edge
+	 * @return returns the maximal capacity at the time of the snapshot
+	 */
+	public double getMaxCapacity(int e) {
+		return mMaxCapacities[e];
+	}
+}
@@ -273,11 +273,25 @@ public class Edge extends GraphElement implements Comparable<Edge> {
 		 * @return returns the edge object according to the string array representation
 		 */
 		public Edge parseEdge(String[] strEdge, Vertex start, Vertex end) {
-			int id = Integer.parseInt(strEdge[0]);
-			updateIdCount(id);
-			return new Edge(id, Double.parseDouble(strEdge[1]), Double.parseDouble(strEdge[2]), 
+			return create(Integer.parseInt(strEdge[0]), Double.parseDouble(strEdge[1]), Double.parseDouble(strEdge[2]), 
 					Double.parseDouble(strEdge[3]), start, end, Boolean.parseBoolean(strEdge[6]));
 		}
+		
+		/**
+		 * creates an edge with the given values, e.g. when it is loaded from a file
+		 * @param id the id of the edge
+		 * @param weight the weight
+		 * @param minCapacity the minimal capacity
+		 * @param maxCapacity the maximal capacity
+		 * @param start the start vertex
+		 * @param end the end vertex
+		 * @param isDirected a boolean, that indicates if the edge is directed or not
+		 * @return returns the created edge
+		 */
+		public Edge create(int id, double weight, double minCapacity, double maxCapacity, Vertex start, Vertex end, boolean isDirected) {
+			updateIdCount(id);
+			return new Edge(id, weight, minCapacity, maxCapacity, start, end, isDirected);
+		}
 
 		@Override
 		public Edge create() {
@@ -3,11 +3,18 @@ package de.chiller.vigral.graph;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import cern.colt.map.OpenIntObjectHashMap;
 import de.chiller.vigral.graph.Edge.EdgeFactory;
 import edu.uci.ics.jung.graph.OrderedSparseMultigraph;
 import edu.uci.ics.jung.graph.util.EdgeType;
+import edu.uci.ics.jung.graph.util.Pair;
 
 
 @SuppressWarnings("serial")
@@ -18,6 +25,43 @@ import edu.uci.ics.jung.graph.util.EdgeType;
  */
 public class Graph extends OrderedSparseMultigraph<Vertex, Edge> {
 
+	/**
+	 * listener that is informed when vertices or edges have been added to or removed from the graph
+	 * @author Simon Schiller
+	 *
+	 */
+	public interface ChangeListener {
+
+		/**
+		 * called after a change of the graph. a bulk edit calls it only once, after all of its changes
+		 * @param graph the changed graph
+		 */
+		public void onGraphChanged(Graph graph);
+	}
+
+	/**
+	 * the vertices and edges of the graph by id. the maps are keyed by primitive ints, so a lookup does not box the id
+	 */
+	private OpenIntObjectHashMap mVerticesById = new OpenIntObjectHashMap();
+	private OpenIntObjectHashMap mEdgesById = new OpenIntObjectHashMap();
+	
+	/**
+	 * the vertices by their labels. the index is only built when a label is looked up for the first time, so the copies
+	 * for the steps of an algorithm do not pay for it. afterwards the vertices keep it up to date when they are renamed
+	 */
+	private HashMap<String, ArrayList<Vertex>> mVerticesByLabel;
+	
+	/**
+	 * the listeners are not copied with the graph
+	 */
+	private ArrayList<ChangeListener> mChangeListeners = new ArrayList<ChangeListener>();
+	/**
+	 * the number of running changes that consist of several changes (a bulk edit or the removal of a vertex with its
+	 * edges). the listeners are informed once, when the outermost of them has finished
+	 */
+	private int mEditDepth = 0;
+	private boolean mChangedDuringEdit = false;
+
 	/**
 	 * creates an instance
 	 */
@@ -26,30 +70,191 @@ public class Graph extends OrderedSparseMultigraph<Vertex, Edge> {
 	}
 	
 	/**
-	 * copy constructor
+	 * copy constructor. the adjacency of the copy is filled directly into maps of the right size, because the
+	 * vertices and edges of a copy are known to be valid and new, so nothing has to be checked or rehashed
 	 * @param g the graph to be copied
 	 */
 	public Graph(Graph g) {
 		super();
-	
-		HashMap<Integer, Vertex> vertices = new HashMap<Integer, Vertex>();
+		vertices = new LinkedHashMap<Vertex, Pair<Set<Edge>>>(capacity(g.getVertexCount()));
+		edges = new LinkedHashMap<Edge, Pair<Vertex>>(capacity(g.getEdgeCount()));
+		directedEdges = new LinkedHashSet<Edge>(capacity(g.directedEdges.size()));
+		mVerticesById.ensureCapacity(g.getVertexCount());
+		mEdgesById.ensureCapacity(g.getEdgeCount());
 		
-		for(Vertex v : g.getVertices()) {
-			Vertex copy = new Vertex(v); 
-			addVertex(copy);
-			vertices.put(copy.getId(), copy);
+		for(Map.Entry<Vertex, Pair<Set<Edge>>> entry : g.vertices.entrySet()) {
+			Vertex copy = new Vertex(entry.getKey());
+			Set<Edge> incoming = new LinkedHashSet<Edge>(capacity(entry.getValue().getFirst().size()));
+			Set<Edge> outgoing = new LinkedHashSet<Edge>(capacity(entry.getValue().getSecond().size()));
+			vertices.put(copy, new Pair<Set<Edge>>(incoming, outgoing));
+			mVerticesById.put(copy.getId(), copy);
 		}
 		
-		for(Edge e : g.getEdges()) {
-			Vertex startVertex = vertices.get(e.getStartVertex().getId());
-			Vertex endVertex = vertices.get(e.getEndVertex().getId());
-			
+		// same order as in addEdge, so the incident edges of the copy are iterated in the same order
+		for(Edge e : g.edges.keySet()) {
+			Vertex startVertex = getVertexById(e.getStartVertex().getId());
+			Vertex endVertex = getVertexById(e.getEndVertex().getId());
 			Edge newEdge = Edge.EdgeFactory.getInstance().copyEdge(e, startVertex, endVertex);
-			if(newEdge.isDirected())
-				addEdge(newEdge, newEdge.getStartVertex(), newEdge.getEndVertex(), EdgeType.DIRECTED);
-			else
-				addEdge(newEdge, newEdge.getStartVertex(), newEdge.getEndVertex(), EdgeType.UNDIRECTED);
+			
+			Pair<Set<Edge>> start = vertices.get(startVertex);
+			Pair<Set<Edge>> end = vertices.get(endVertex);
+			start.getSecond().add(newEdge);
+			end.getFirst().add(newEdge);
+			edges.put(newEdge, new Pair<Vertex>(startVertex, endVertex));
+			if(newEdge.isDirected()) {
+				directedEdges.add(newEdge);
+			}
+			else {
+				start.getFirst().add(newEdge);
+				end.getSecond().add(newEdge);
+			}
+			mEdgesById.put(newEdge.getId(), newEdge);
+		}
+	}
+	
+	/**
+	 * returns the initial capacity of a hash map or set that holds the given number of elements without rehashing
+	 */
+	private static int capacity(int size) {
+		return size * 4 / 3 + 1;
+	}
+	
+	@Override
+	public boolean addVertex(Vertex vertex) {
+		if(!super.addVertex(vertex))
+			return false;
+		
+		mVerticesById.put(vertex.getId(), vertex);
+		if(mVerticesByLabel != null)
+			indexLabel(vertex);
+		fireGraphChanged();
+		return true;
+	}
+	
+	@Override
+	public boolean addEdge(Edge edge, Pair<? extends Vertex> endpoints, EdgeType edgeType) {
+		// missing vertices are added through addVertex
+		beginEdit();
+		try {
+			if(!super.addEdge(edge, endpoints, edgeType))
+				return false;
+			
+			mEdgesById.put(edge.getId(), edge);
+			fireGraphChanged();
+			return true;
+		}
+		finally {
+			endEdit();
+		}
+	}
+	
+	@Override
+	public boolean removeVertex(Vertex vertex) {
+		// the incident edges are removed through removeEdge
+		beginEdit();
+		try {
+			if(!super.removeVertex(vertex))
+				return false;
+			
+			if(mVerticesById.get(vertex.getId()) == vertex)
+				mVerticesById.removeKey(vertex.getId());
+			if(mVerticesByLabel != null)
+				unindexLabel(vertex, vertex.getLabel());
+			fireGraphChanged();
+			return true;
+		}
+		finally {
+			endEdit();
+		}
+	}
+	
+	@Override
+	public boolean removeEdge(Edge edge) {
+		if(!super.removeEdge(edge))
+			return false;
+		
+		if(mEdgesById.get(edge.getId()) == edge)
+			mEdgesById.removeKey(edge.getId());
+		fireGraphChanged();
+		return true;
+	}
+	
+	/**
+	 * adds a listener that is informed about the changes of the graph
+	 * @param listener the listener to add
+	 */
+	public void addChangeListener(ChangeListener listener) {
+		mChangeListeners.add(listener);
+	}
+	
+	/**
+	 * removes a listener that has been added before
+	 * @param listener the listener to remove
+	 */
+	public void removeChangeListener(ChangeListener listener) {
+		mChangeListeners.remove(listener);
+	}
+	
+	/**
+	 * informs the listeners about a change, or remembers it until the running edit has finished
+	 */
+	private void fireGraphChanged() {
+		if(mEditDepth > 0) {
+			mChangedDuringEdit = true;
+			return;
+		}
+		if(mChangeListeners.isEmpty())
+			return;
+		
+		for(ChangeListener listener : new ArrayList<ChangeListener>(mChangeListeners))
+			listener.onGraphChanged(this);
+	}
+	
+	private void beginEdit() {
+		mEditDepth++;
+	}
+	
+	/**
+	 * finishes a change started with beginEdit and informs the listeners, if it was the outermost one and something
+	 * has changed
+	 */
+	private void endEdit() {
+		mEditDepth--;
+		if(mEditDepth == 0 && mChangedDuringEdit) {
+			mChangedDuringEdit = false;
+			fireGraphChanged();
+		}
+	}
+	
+	/**
+	 * starts a bulk edit. the additions and removals are collected by the returned object and applied together by its
+	 * apply method, which informs the listeners only once
+	 * @return returns the bulk edit of this graph
+	 */
+	public BulkEdit beginBulkEdit() {
+		return new BulkEdit();
+	}
+	
+	/**
+	 * makes room for the given number of vertices and edges in the maps of the graph. a LinkedHashMap cannot be enlarged
+	 * in advance, so the maps are copied into maps of the right size, if they would have to grow more than once anyway
+	 */
+	private void ensureCapacity(int vertexCount, int edgeCount) {
+		if(vertexCount > 2 * vertices.size()) {
+			Map<Vertex, Pair<Set<Edge>>> newVertices = new LinkedHashMap<Vertex, Pair<Set<Edge>>>(capacity(vertexCount));
+			newVertices.putAll(vertices);
+			vertices = newVertices;
+		}
+		if(edgeCount > 2 * edges.size()) {
+			Map<Edge, Pair<Vertex>> newEdges = new LinkedHashMap<Edge, Pair<Vertex>>(capacity(edgeCount));
+			newEdges.putAll(edges);
+			edges = newEdges;
+			Set<Edge> newDirectedEdges = new LinkedHashSet<Edge>(capacity(edgeCount));
+			newDirectedEdges.addAll(directedEdges);
+			directedEdges = newDirectedEdges;
 		}
+		mVerticesById.ensureCapacity(vertexCount);
+		mEdgesById.ensureCapacity(edgeCount);
 	}
 	
 	/**
@@ -96,23 +301,81 @@ public class Graph extends OrderedSparseMultigraph<Vertex, Edge> {
 	 * @return returns the appropriate vertex or null, if no vertex with that id is found
 	 */
 	public Vertex getVertexById(int id) {
-		for(Vertex v : getVertices()) {
-			if(v.getId() == id)
-				return v;
+		return (Vertex) mVerticesById.get(id);
+	}
+	
+	/**
+	 * returns the edge according to the given id
+	 * @param id the id of the edge
+	 * @return returns the appropriate edge or null, if no edge with that id is found
+	 */
+	public Edge getEdgeById(int id) {
+		return (Edge) mEdgesById.get(id);
+	}
+	
+	
+	/**
+	 * checks if a vertex of the graph has got the given label or identifier
+	 * @param label the label to look for
+	 * @return returns true if the label or identifier is used by a vertex of the graph
+	 */
+	public boolean isLabelUsed(String label) {
+		if(mVerticesByLabel == null) {
+			mVerticesByLabel = new HashMap<String, ArrayList<Vertex>>(capacity(getVertexCount()));
+			for(Vertex v : getVertices())
+				indexLabel(v);
 		}
+		if(mVerticesByLabel.containsKey(label))
+			return true;
 		
-		return null;
+		// the identifier is the id with a leading "V"
+		if(label.length() > 1 && label.charAt(0) == 'V') {
+			try {
+				Vertex v = getVertexById(Integer.parseInt(label.substring(1)));
+				return v != null && v.getIdentifier().equals(label);
+			} catch(NumberFormatException e) {
+				return false;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * moves a vertex to its new label in the label index. this is called by the vertex
+	 * @param v the renamed vertex
+	 * @param oldLabel the label the vertex had before
+	 */
+	void onLabelChanged(Vertex v, String oldLabel) {
+		removeLabel(v, oldLabel);
+		putLabel(v);
 	}
 	
+	/**
+	 * adds a vertex to the label index and registers the graph at the vertex, so it is informed about a new label
+	 */
+	private void indexLabel(Vertex v) {
+		putLabel(v);
+		v.addLabelIndex(this);
+	}
 	
+	private void unindexLabel(Vertex v, String label) {
+		removeLabel(v, label);
+		v.removeLabelIndex(this);
+	}
 	
-	public Edge getEdgeById(int id) {
-		for(Edge e : getEdges()) {
-			if(e.getId() == id)
-				return e;
+	private void putLabel(Vertex v) {
+		ArrayList<Vertex> labelled = mVerticesByLabel.get(v.getLabel());
+		if(labelled == null) {
+			labelled = new ArrayList<Vertex>(1);
+			mVerticesByLabel.put(v.getLabel(), labelled);
 		}
-		
-		return null;
+		labelled.add(v);
+	}
+	
+	private void removeLabel(Vertex v, String label) {
+		ArrayList<Vertex> labelled = mVerticesByLabel.get(label);
+		if(labelled != null && labelled.remove(v) && labelled.isEmpty())
+			mVerticesByLabel.remove(label);
 	}
 	
 	
@@ -124,37 +387,166 @@ public class Graph extends OrderedSparseMultigraph<Vertex, Edge> {
 	 */
 	public static Graph parseGraph(List<String[]> strVertices, List<String[]> strEdges) {
 		Graph g = new Graph();
-		HashMap<Integer, Vertex> vertices = new HashMap<Integer, Vertex>();
+		g.ensureCapacity(strVertices.size(), strEdges.size());
+		
+		for(String[] strVertex : strVertices)
+			g.addParsedVertex(strVertex);
+		
+		for(String[] strEdge : strEdges)
+			g.addParsedEdge(strEdge);
+		
+		return g;
+	}
+	
+	/**
+	 * parses a vertex out of its string representation and adds it to the graph
+	 * @param strVertex the vertex as string array
+	 * @return returns the added vertex
+	 */
+	public Vertex addParsedVertex(String[] strVertex) {
+		Vertex v = Vertex.parseVertex(strVertex);
+		addVertex(v);
+		return v;
+	}
+	
+	/**
+	 * parses an edge out of its string representation and adds it to the graph. the vertices of the edge have to be
+	 * added before
+	 * @param strEdge the edge as string array
+	 * @return returns the added edge
+	 */
+	public Edge addParsedEdge(String[] strEdge) {
+		int startId = Integer.parseInt(strEdge[4]);
+		int endId = Integer.parseInt(strEdge[5]);
+		Vertex startVertex = getVertexById(startId);
+		Vertex endVertex = getVertexById(endId);
+		
+		Edge newEdge = EdgeFactory.getInstance().parseEdge(strEdge, startVertex, endVertex);
+		if(newEdge.isDirected())
+			addEdge(newEdge, newEdge.getStartVertex(), newEdge.getEndVertex(), EdgeType.DIRECTED);
+		else
+			addEdge(newEdge, newEdge.getStartVertex(), newEdge.getEndVertex(), EdgeType.UNDIRECTED);
+		return newEdge;
+	}
+	
+	
+	
+	/**
+	 * collects many additions and removals of vertices and edges and applies them in one pass. the removals are applied
+	 * before the additions, the vertices are added before the edges
+	 * @author Simon Schiller
+	 *
+	 */
+	public class BulkEdit {
+		private ArrayList<Vertex> mAddedVertices = new ArrayList<Vertex>();
+		private ArrayList<Edge> mAddedEdges = new ArrayList<Edge>();
+		private HashSet<Vertex> mRemovedVertices = new HashSet<Vertex>();
+		private HashSet<Edge> mRemovedEdges = new HashSet<Edge>();
+		
+		private BulkEdit() {
+		}
+		
+		/**
+		 * adds a vertex when the edit is applied
+		 * @param vertex the vertex to add
+		 */
+		public void addVertex(Vertex vertex) {
+			mAddedVertices.add(vertex);
+		}
+		
+		/**
+		 * adds an edge between its start and end vertex when the edit is applied
+		 * @param edge the edge to add
+		 */
+		public void addEdge(Edge edge) {
+			mAddedEdges.add(edge);
+		}
+		
+		/**
+		 * removes a vertex and its incident edges when the edit is applied
+		 * @param vertex the vertex to remove
+		 */
+		public void removeVertex(Vertex vertex) {
+			mRemovedVertices.add(vertex);
+		}
+		
+		/**
+		 * removes an edge when the edit is applied
+		 * @param edge the edge to remove
+		 */
+		public void removeEdge(Edge edge) {
+			mRemovedEdges.add(edge);
+		}
 		
-		for(String[] strVertex : strVertices) {
-			Vertex v = Vertex.parseVertex(strVertex);
-			g.addVertex(v);
-			vertices.put(v.getId(), v);
+		/**
+		 * applies all collected changes to the graph and informs the listeners once, if anything has changed. the edit is
+		 * empty afterwards and can be used again
+		 */
+		public void apply() {
+			beginEdit();
+			try {
+				removeAll();
+				
+				ensureCapacity(vertices.size() + mAddedVertices.size(), edges.size() + mAddedEdges.size());
+				for(Vertex v : mAddedVertices)
+					Graph.this.addVertex(v);
+				for(Edge e : mAddedEdges)
+					Graph.this.addEdge(e, e.getStartVertex(), e.getEndVertex(), e.isDirected() ? EdgeType.DIRECTED : EdgeType.UNDIRECTED);
+			}
+			finally {
+				mAddedVertices.clear();
+				mAddedEdges.clear();
+				mRemovedVertices.clear();
+				mRemovedEdges.clear();
+				endEdit();
+			}
 		}
 		
-		for(String[] strEdge : strEdges) {
-			int startId = Integer.parseInt(strEdge[4]);
-			int endId = Integer.parseInt(strEdge[5]);
-			Vertex startVertex = vertices.get(startId);
-			Vertex endVertex = vertices.get(endId);
+		/**
+		 * removes the edges and vertices. the incident edges of removed vertices are only taken out of the adjacency of
+		 * the vertices that stay in the graph
+		 */
+		private void removeAll() {
+			for(Vertex v : mRemovedVertices) {
+				Pair<Set<Edge>> adjacency = vertices.get(v);
+				if(adjacency != null) {
+					mRemovedEdges.addAll(adjacency.getFirst());
+					mRemovedEdges.addAll(adjacency.getSecond());
+				}
+			}
 			
-   			Edge newEdge = EdgeFactory.getInstance().parseEdge(strEdge, startVertex, endVertex);
-			if(newEdge.isDirected())
-				g.addEdge(newEdge, newEdge.getStartVertex(), newEdge.getEndVertex(), EdgeType.DIRECTED);
-			else
-				g.addEdge(newEdge, newEdge.getStartVertex(), newEdge.getEndVertex(), EdgeType.UNDIRECTED);
+			for(Edge e : mRemovedEdges) {
+				Pair<Vertex> endpoints = edges.remove(e);
+				if(endpoints == null)
+					continue;
+				
+				directedEdges.remove(e);
+				removeFromAdjacency(endpoints.getFirst(), e);
+				removeFromAdjacency(endpoints.getSecond(), e);
+				if(mEdgesById.get(e.getId()) == e)
+					mEdgesById.removeKey(e.getId());
+				mChangedDuringEdit = true;
+			}
+			
+			for(Vertex v : mRemovedVertices) {
+				if(vertices.remove(v) == null)
+					continue;
+				
+				if(mVerticesById.get(v.getId()) == v)
+					mVerticesById.removeKey(v.getId());
+				if(mVerticesByLabel != null)
+					unindexLabel(v, v.getLabel());
+				mChangedDuringEdit = true;
+			}
 		}
 		
-		return g;
+		private void removeFromAdjacency(Vertex v, Edge e) {
+			if(mRemovedVertices.contains(v))
+				return;
+			
+			Pair<Set<Edge>> adjacency = vertices.get(v);
+			adjacency.getFirst().remove(e);
+			adjacency.getSecond().remove(e);
+		}
 	}
 }
-
-
-
-
-
-
-
-
-
-
@@ -0,0 +1,66 @@
+package de.chiller.vigral.graph;
+
+import cern.colt.list.IntArrayList;
+
+/**
+ * the ids of the vertices and edges whose attributes differ between two graphs with the same structure, e.g. the graphs
+ * of two steps of an algorithm. the viewers use them to update only the changed elements. an id may be contained more
+ * than once
+ * @author Simon Schiller
+ *
+ */
+public class GraphChanges {
+
+	private IntArrayList mVertexIds = new IntArrayList();
+	private IntArrayList mEdgeIds = new IntArrayList();
+
+
+	/**
+	 * adds a changed vertex
+	 * @param id the id of the vertex
+	 */
+	public void addVertex(int id) {
+		mVertexIds.add(id);
+	}
+
+	/**
+	 * adds a changed edge
+	 * @param id the id of the edge
+	 */
+	public void addEdge(int id) {
+		mEdgeIds.add(id);
+	}
+
+	/**
+	 * adds all vertices and edges of other changes, e.g. of the following step
+	 * @param changes the other changes
+	 */
+	public void addAll(GraphChanges changes) {
+		mVertexIds.addAllOf(changes.mVertexIds);
+		mEdgeIds.addAllOf(changes.mEdgeIds);
+	}
+
+	/**
+	 * getter for the ids of the changed vertices
+	 * @return returns the ids
+	 */
+	public IntArrayList getVertexIds() {
+		return mVertexIds;
+	}
+
+	/**
+	 * getter for the ids of the changed edges
+	 * @return returns the ids
+	 */
+	public IntArrayList getEdgeIds() {
+		return mEdgeIds;
+	}
+
+	/**
+	 * getter for the number of changed elements
+	 * @return returns the number of ids
+	 */
+	public int size() {
+		return mVertexIds.size() + mEdgeIds.size();
+	}
+}
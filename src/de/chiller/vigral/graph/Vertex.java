@@ -1,5 +1,6 @@
 package de.chiller.vigral.graph;
 import java.awt.geom.Point2D;
+import java.util.ArrayList;
 
 import org.apache.commons.collections15.Factory;
 
@@ -25,6 +26,11 @@ public class Vertex extends GraphElement implements Comparable<Vertex> {
 	
 	private Point2D mLocation;
 	
+	/**
+	 * the graphs that keep this vertex in their label index, it is not copied with the vertex
+	 */
+	private ArrayList<Graph> mLabelIndexes;
+	
 	
 	/**
 	 * constructs a vertex
@@ -73,7 +79,32 @@ public class Vertex extends GraphElement implements Comparable<Vertex> {
 	 * @param label
 	 */
 	public void setLabel(String label) {
+		String oldLabel = mLabel;
 		mLabel = label;
+		if(mLabelIndexes != null) {
+			for(Graph g : mLabelIndexes)
+				g.onLabelChanged(this, oldLabel);
+		}
+	}
+	
+	/**
+	 * registers a graph that has to be informed when the label changes
+	 * @param g the graph with the label index
+	 */
+	void addLabelIndex(Graph g) {
+		if(mLabelIndexes == null)
+			mLabelIndexes = new ArrayList<Graph>(1);
+		if(!mLabelIndexes.contains(g))
+			mLabelIndexes.add(g);
+	}
+	
+	/**
+	 * unregisters a graph that has been registered with addLabelIndex
+	 * @param g the graph with the label index
+	 */
+	void removeLabelIndex(Graph g) {
+		if(mLabelIndexes != null)
+			mLabelIndexes.remove(g);
 	}
 	
 	/**
@@ -163,15 +194,8 @@ public class Vertex extends GraphElement implements Comparable<Vertex> {
 	 * @return returns the appropriate vertex object
 	 */
 	public static Vertex parseVertex(String[] values) {
-		Vertex v = new Vertex();
-		
-		v.mID = Integer.parseInt(values[0]);
-		VertexFactory.getInstance().checkIdCount(v.getId());
-		v.mLabel = values[1];
 		Point2D p = new Point2D.Double(Double.parseDouble(values[2]), Double.parseDouble(values[3]));
-		v.mLocation = p;
-		
-		return v;
+		return VertexFactory.getInstance().create(Integer.parseInt(values[0]), values[1], p);
 	}
 
 
@@ -222,6 +246,20 @@ public class Vertex extends GraphElement implements Comparable<Vertex> {
 			return new Vertex(IDCOUNT++, mPoint);
 		}
 		
+		/**
+		 * creates a vertex with the given values, e.g. when it is loaded from a file
+		 * @param id the id of the vertex
+		 * @param label the label of the vertex
+		 * @param location the location of the vertex
+		 * @return returns the created vertex
+		 */
+		public Vertex create(int id, String label, Point2D location) {
+			checkIdCount(id);
+			Vertex v = new Vertex(id, location);
+			v.mLabel = label;
+			return v;
+		}
+		
 		/**
 		 * checks if the passed id is is smaller or equal to the idcounter. if so, the idcounter is set to id+1
 		 * @param id the id against that the idcounter has to be checked
@@ -11,6 +11,7 @@ import java.awt.geom.Point2D;
 
 import de.chiller.vigral.VigralGUI;
 import de.chiller.vigral.graph.Edge;
+import de.chiller.vigral.graph.Graph.BulkEdit;
 import de.chiller.vigral.graph.Vertex;
 import edu.uci.ics.jung.algorithms.layout.Layout;
 import edu.uci.ics.jung.graph.Graph;
@@ -140,12 +141,16 @@ public class EditSupport {
 		// get the graph
     	Graph<Vertex, Edge> graph = vv.getModel().getGraphLayout().getGraph();
 		
-    	Vertex.VertexFactory.getInstance().setLocation(e.getPoint());
+    	// the location of a vertex is in layout coordinates, which differ from the point on the screen when the view is zoomed or moved
+    	Point2D location = vv.getRenderContext().getMultiLayerTransformer().inverseTransform(e.getPoint());
+    	Vertex.VertexFactory.getInstance().setLocation(location);
 		Vertex newVertex = Vertex.VertexFactory.getInstance().create();
 		
         Layout<Vertex, Edge> layout = vv.getModel().getGraphLayout();
         graph.addVertex(newVertex);
-        layout.setLocation(newVertex, vv.getRenderContext().getMultiLayerTransformer().inverseTransform(e.getPoint()));
+        layout.setLocation(newVertex, location);
+        if(vv.getPickSupport() instanceof SpatialPickSupport)
+        	((SpatialPickSupport) vv.getPickSupport()).updateVertex(newVertex);
 		
 	}
 	
@@ -162,10 +167,10 @@ public class EditSupport {
 		if((vertex != null) && (mStartVertex != null)) {
 			if(!(mDown.getX() == p.getX() && mDown.getY() == p.getY())) {
 	    		Graph<Vertex, Edge> graph = vv.getGraphLayout().getGraph();
-	    		if(mEdgeIsDirected == EdgeType.DIRECTED)
-	    			graph.addEdge(Edge.EdgeFactory.getInstance().create(mStartVertex, vertex, true), mStartVertex, vertex, mEdgeIsDirected);
-	    		else
-	    			graph.addEdge(Edge.EdgeFactory.getInstance().create(mStartVertex, vertex, false), mStartVertex, vertex, mEdgeIsDirected);
+	    		Edge edge = Edge.EdgeFactory.getInstance().create(mStartVertex, vertex, mEdgeIsDirected == EdgeType.DIRECTED);
+	    		graph.addEdge(edge, mStartVertex, vertex, mEdgeIsDirected);
+	    		if(vv.getPickSupport() instanceof SpatialPickSupport)
+	    			((SpatialPickSupport) vv.getPickSupport()).updateEdge(edge);
 	    	}
 		}
         vv.repaint();
@@ -183,10 +188,14 @@ public class EditSupport {
 		System.out.println("delete selection");
 		VisualizationViewer<Vertex, Edge> vv = VigralGUI.getInstance().getGraphBuilder().getVisualizationViewer();
 		PickedState<Vertex> pickedVertices = vv.getPickedVertexState();
+		// the vertices are removed together, so the graph builder draws the graph only once
+		BulkEdit edit = VigralGUI.getInstance().getGraphBuilder().beginBulkEdit();
 		for(Vertex v : pickedVertices.getPicked()) {
-			vv.getGraphLayout().getGraph().removeVertex(v);
-			vv.repaint();
+			if(vv.getPickSupport() instanceof SpatialPickSupport)
+				((SpatialPickSupport) vv.getPickSupport()).removeVertex(v);
+			edit.removeVertex(v);
 		}
+		edit.apply();
 	}
 	
 	
@@ -143,22 +143,17 @@ public class ElementPropertyDialog<GE> extends JDialog {
 				// for Vertices
 				if(mElement instanceof Vertex) {
 					String newLabel = mComponents.get(0).getR().getText().toString().trim();
-					boolean alreadyUsed = false;
 					
 					// if the label equals the actual label or the actual identifier, then accept the input
 					if(((Vertex) mElement).getLabel().equals(newLabel) || ((Vertex) mElement).getIdentifier().equals(newLabel)) {
 						((Vertex) mElement).setLabel(newLabel);
 						dispose();
+						return;
 					}
 					
 					
-					// check if the label is already used by another vertex
-					for(Vertex v : VigralGUI.getInstance().getGraphBuilder().getGraph().getVertices()) {
-						if(v.getLabel().equals(newLabel) || v.getIdentifier().equals(newLabel)) {
-							alreadyUsed = true;
-							break;
-						}
-					}
+					// check if the label is already used by another vertex, the graph keeps an index of the labels
+					boolean alreadyUsed = VigralGUI.getInstance().getGraphBuilder().getGraphView().isLabelUsed(newLabel);
 					
 					
 					// if the new label is like "V<ID>" and show a hint with the actual vertex ID
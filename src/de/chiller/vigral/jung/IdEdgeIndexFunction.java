@@ -0,0 +1,74 @@
+package de.chiller.vigral.jung;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import cern.colt.map.OpenIntIntHashMap;
+import de.chiller.vigral.graph.Edge;
+import de.chiller.vigral.graph.Vertex;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.EdgeIndexFunction;
+import edu.uci.ics.jung.graph.util.Pair;
+
+/**
+ * numbers parallel edges in the order of their ids. the default function of jung numbers them in the order they are
+ * asked for, so an edge that is drawn again alone, e.g. in a single tile, could get another index and be drawn at
+ * another place than before. the indices of the last graph are kept by the id of the edge
+ * @author Simon Schiller
+ *
+ */
+public class IdEdgeIndexFunction implements EdgeIndexFunction<Vertex, Edge> {
+
+	private Graph<Vertex, Edge> mGraph;
+	private OpenIntIntHashMap mIndices = new OpenIntIntHashMap();
+
+
+	@Override
+	public int getIndex(Graph<Vertex, Edge> graph, Edge e) {
+		if(graph != mGraph) {
+			mGraph = graph;
+			mIndices.clear();
+		}
+
+		if(!mIndices.containsKey(e.getId())) {
+			ArrayList<Edge> parallel = getParallelEdges(graph, e);
+			Collections.sort(parallel);
+			for(int i = 0; i < parallel.size(); i++)
+				mIndices.put(parallel.get(i).getId(), i);
+		}
+		return mIndices.get(e.getId());
+	}
+
+	/**
+	 * collects the edge and all edges parallel to it, i.e. the loops at the same vertex or the edges with the same first
+	 * and second endpoint
+	 * @param graph the graph
+	 * @param e the edge
+	 * @return returns the edges
+	 */
+	private ArrayList<Edge> getParallelEdges(Graph<Vertex, Edge> graph, Edge e) {
+		Pair<Vertex> endpoints = graph.getEndpoints(e);
+		Vertex first = endpoints.getFirst();
+		Vertex second = endpoints.getSecond();
+		boolean loop = first.equals(second);
+
+		ArrayList<Edge> parallel = new ArrayList<Edge>();
+		for(Edge other : graph.getIncidentEdges(first)) {
+			Pair<Vertex> otherEndpoints = graph.getEndpoints(other);
+			boolean otherLoop = otherEndpoints.getFirst().equals(otherEndpoints.getSecond());
+			if(loop ? otherLoop : (!otherLoop && otherEndpoints.getFirst().equals(first) && otherEndpoints.getSecond().equals(second)))
+				parallel.add(other);
+		}
+		return parallel;
+	}
+
+	@Override
+	public void reset(Graph<Vertex, Edge> graph, Edge e) {
+		mGraph = null;
+	}
+
+	@Override
+	public void reset() {
+		mGraph = null;
+	}
+}
@@ -0,0 +1,376 @@
+package de.chiller.vigral.jung;
+
+import java.awt.BasicStroke;
+import java.awt.Dimension;
+import java.awt.Paint;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+
+import de.chiller.vigral.graph.GraphChanges;
+import edu.uci.ics.jung.algorithms.layout.GraphElementAccessor;
+import edu.uci.ics.jung.algorithms.layout.Layout;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.Context;
+import edu.uci.ics.jung.visualization.Layer;
+import edu.uci.ics.jung.visualization.RenderContext;
+import edu.uci.ics.jung.visualization.renderers.BasicRenderer;
+import edu.uci.ics.jung.visualization.transform.shape.GraphicsDecorator;
+
+/**
+ * this renderer only draws the vertices and edges that are visible in the viewer. the visible elements are taken from
+ * the grid of the SpatialPickSupport, so the elements outside of the viewer are not even looked at. when the vertices
+ * get small on the screen, their labels and the arrows and labels of the edges are left out, and when too many edges
+ * are visible, they are drawn as thin lines instead of their shapes. the drawn graph is kept in a TileCache, so a
+ * frame only draws the parts of the graph that have changed. the cache is given the bounds of the elements as they are
+ * drawn, with their labels and arrows
+ * 
+ * the graph classes are written with their package, because the Renderer interface has inner interfaces with the same
+ * names
+ * @author Simon Schiller
+ *
+ */
+public class LevelOfDetailRenderer extends BasicRenderer<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> {
+
+	private static final Stroke SIMPLE_EDGE_STROKE = new BasicStroke(1.0f);
+
+	private static final Comparator<de.chiller.vigral.graph.Vertex> VERTEX_ORDER = new Comparator<de.chiller.vigral.graph.Vertex>() {
+		@Override
+		public int compare(de.chiller.vigral.graph.Vertex v1, de.chiller.vigral.graph.Vertex v2) {
+			return v1.getId() < v2.getId() ? -1 : (v1.getId() == v2.getId() ? 0 : 1);
+		}
+	};
+
+	private static final Comparator<de.chiller.vigral.graph.Edge> EDGE_ORDER = new Comparator<de.chiller.vigral.graph.Edge>() {
+		@Override
+		public int compare(de.chiller.vigral.graph.Edge e1, de.chiller.vigral.graph.Edge e2) {
+			return e1.getId() < e2.getId() ? -1 : (e1.getId() == e2.getId() ? 0 : 1);
+		}
+	};
+
+	/**
+	 * the diameter of a vertex on the screen, below which no labels are drawn
+	 */
+	private double mMinLabelSize = 16;
+	/**
+	 * the diameter of a vertex on the screen, below which the edges are drawn as simple lines without arrows
+	 */
+	private double mMinArrowSize = 8;
+	/**
+	 * the number of visible edges, above which the edges are drawn as simple lines
+	 */
+	private int mMaxDetailedEdges = 5000;
+
+	/**
+	 * the rendered graph, only the parts with changed elements are drawn again
+	 */
+	private TileCache mTileCache = new TileCache();
+
+	/**
+	 * the farthest distance a label or an arrow has reached beyond the shape of its element (before the view
+	 * transformation). the elements this far outside of the viewer are looked at as well, because they may reach into it
+	 */
+	private double mReach;
+
+
+	/**
+	 * getter for the size of a vertex on the screen, below which no labels are drawn
+	 * @return returns the diameter in pixels
+	 */
+	public double getMinLabelSize() {
+		return mMinLabelSize;
+	}
+
+	/**
+	 * setter for the size of a vertex on the screen, below which no labels are drawn
+	 * @param size the diameter in pixels
+	 */
+	public void setMinLabelSize(double size) {
+		mMinLabelSize = size;
+	}
+
+	/**
+	 * getter for the size of a vertex on the screen, below which the edges are drawn without arrows
+	 * @return returns the diameter in pixels
+	 */
+	public double getMinArrowSize() {
+		return mMinArrowSize;
+	}
+
+	/**
+	 * setter for the size of a vertex on the screen, below which the edges are drawn without arrows
+	 * @param size the diameter in pixels
+	 */
+	public void setMinArrowSize(double size) {
+		mMinArrowSize = size;
+	}
+
+	/**
+	 * getter for the number of visible edges, above which the edges are drawn as simple lines
+	 * @return returns the number of edges
+	 */
+	public int getMaxDetailedEdges() {
+		return mMaxDetailedEdges;
+	}
+
+	/**
+	 * setter for the number of visible edges, above which the edges are drawn as simple lines
+	 * @param count the number of edges
+	 */
+	public void setMaxDetailedEdges(int count) {
+		mMaxDetailedEdges = count;
+	}
+
+
+	/**
+	 * getter for the cache of the rendered graph
+	 * @return returns the tile cache
+	 */
+	public TileCache getTileCache() {
+		return mTileCache;
+	}
+
+
+	@Override
+	public void render(RenderContext<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> rc, Layout<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> layout) {
+		GraphElementAccessor<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> pickSupport = rc.getPickSupport();
+		if(!(pickSupport instanceof SpatialPickSupport) || rc.getScreenDevice() == null) {
+			super.render(rc, layout);
+			return;
+		}
+
+		SpatialPickSupport grid = (SpatialPickSupport) pickSupport;
+		double reach = mReach;
+		try {
+			double vertexSize = getVertexSize(rc, layout);
+			boolean labels = vertexSize >= mMinLabelSize;
+
+			// the graph of the next step of an algorithm only needs its changed elements to be looked at. the structure
+			// of the graph is the same, so the edges in the image decide about their level of detail
+			GraphChanges changes = mTileCache.getChanges(rc, layout);
+			if(changes != null) {
+				boolean simpleEdges = mTileCache.getEdgeCount() > mMaxDetailedEdges || vertexSize < mMinArrowSize;
+				if(mTileCache.update(rc, layout, changes, getRenderKey(rc, labels, simpleEdges), createPainter(rc, layout, grid, labels, simpleEdges)))
+					return;
+			}
+
+			Rectangle2D area = getVisibleArea(rc, (int) Math.ceil(reach * rc.getMultiLayerTransformer().getTransformer(Layer.VIEW).getScale()));
+			Collection<de.chiller.vigral.graph.Vertex> vertices = grid.getVertexCandidates(layout, area);
+			Collection<de.chiller.vigral.graph.Edge> edges = grid.getEdgeCandidates(layout, area);
+			boolean simpleEdges = edges.size() > mMaxDetailedEdges || vertexSize < mMinArrowSize;
+			mTileCache.paint(rc, layout, vertices, edges, getRenderKey(rc, labels, simpleEdges), createPainter(rc, layout, grid, labels, simpleEdges));
+		} catch(ConcurrentModificationException cme) {
+			mTileCache.invalidate();
+			rc.getScreenDevice().repaint();
+		} finally {
+			// the elements that have been left out may reach into the viewer with their labels
+			if(mReach > reach) {
+				mTileCache.invalidate();
+				rc.getScreenDevice().repaint();
+			}
+		}
+	}
+
+	private Object[] getRenderKey(RenderContext<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> rc, boolean labels, boolean simpleEdges) {
+		return new Object[] {labels, simpleEdges, rc.getLabelOffset(), rc.getScreenDevice().getBackground()};
+	}
+
+	private TileCache.Painter createPainter(final RenderContext<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> rc, final Layout<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> layout,
+			final SpatialPickSupport grid, final boolean labels, final boolean simpleEdges) {
+		return new TileCache.Painter() {
+			@Override
+			public Rectangle2D getBounds(de.chiller.vigral.graph.Vertex v) {
+				return getVertexBounds(rc, layout, v, labels);
+			}
+
+			@Override
+			public Rectangle2D getBounds(de.chiller.vigral.graph.Edge e) {
+				return getEdgeBounds(rc, layout, grid, e, labels, simpleEdges);
+			}
+
+			@Override
+			public void paint(Collection<de.chiller.vigral.graph.Vertex> vertices, Collection<de.chiller.vigral.graph.Edge> edges) {
+				renderArea(rc, layout, vertices, edges, labels, simpleEdges);
+			}
+		};
+	}
+
+	/**
+	 * draws the given elements in the order of their ids, so overlapping elements are always drawn the same way, no
+	 * matter which part of the graph is drawn
+	 */
+	private void renderArea(RenderContext<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> rc, Layout<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> layout, Collection<de.chiller.vigral.graph.Vertex> vertices, Collection<de.chiller.vigral.graph.Edge> edges, boolean labels, boolean simpleEdges) {
+		ArrayList<de.chiller.vigral.graph.Edge> sortedEdges = new ArrayList<de.chiller.vigral.graph.Edge>(edges);
+		Collections.sort(sortedEdges, EDGE_ORDER);
+		for(de.chiller.vigral.graph.Edge e : sortedEdges) {
+			if(simpleEdges)
+				renderSimpleEdge(rc, layout, e);
+			else
+				renderEdge(rc, layout, e);
+			if(labels && !simpleEdges)
+				renderEdgeLabel(rc, layout, e);
+		}
+
+		ArrayList<de.chiller.vigral.graph.Vertex> sortedVertices = new ArrayList<de.chiller.vigral.graph.Vertex>(vertices);
+		Collections.sort(sortedVertices, VERTEX_ORDER);
+		for(de.chiller.vigral.graph.Vertex v : sortedVertices) {
+			renderVertex(rc, layout, v);
+			if(labels)
+				renderVertexLabel(rc, layout, v);
+		}
+	}
+
+
+	/**
+	 * calculates the part of the graph that is shown in the viewer
+	 * @param margin the number of pixels the viewer is enlarged by on every side
+	 * @return returns the visible area in layout coordinates
+	 */
+	private Rectangle2D getVisibleArea(RenderContext<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> rc, int margin) {
+		Dimension d = rc.getScreenDevice().getSize();
+		Shape screen = new Rectangle2D.Double(-margin, -margin, d.width + 2 * margin, d.height + 2 * margin);
+		return rc.getMultiLayerTransformer().inverseTransform(screen).getBounds2D();
+	}
+
+	/**
+	 * calculates the diameter of the vertices on the screen from the first vertex of the graph (all vertices are drawn
+	 * with the same shape)
+	 */
+	private double getVertexSize(RenderContext<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> rc, Layout<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> layout) {
+		if(layout.getGraph().getVertexCount() == 0)
+			return Double.MAX_VALUE;
+
+		// the shapes of the vertices are placed after the layout transformation, so only the view scales them
+		Rectangle2D bounds = rc.getVertexShapeTransformer().transform(layout.getGraph().getVertices().iterator().next()).getBounds2D();
+		return Math.max(bounds.getWidth(), bounds.getHeight()) * rc.getMultiLayerTransformer().getTransformer(Layer.VIEW).getScale();
+	}
+
+	/**
+	 * calculates the area a vertex and its label are drawn in on the screen
+	 */
+	private Rectangle2D getVertexBounds(RenderContext<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> rc, Layout<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> layout, de.chiller.vigral.graph.Vertex v, boolean labels) {
+		Point2D p = rc.getMultiLayerTransformer().transform(Layer.LAYOUT, layout.transform(v));
+		Shape shape = AffineTransform.getTranslateInstance(p.getX(), p.getY()).createTransformedShape(rc.getVertexShapeTransformer().transform(v));
+		Rectangle2D bounds = grow(shape.getBounds2D(), getStrokeWidth(rc.getVertexStrokeTransformer().transform(v)));
+		Rectangle2D shapeBounds = bounds;
+
+		String label = labels ? rc.getVertexLabelTransformer().transform(v) : null;
+		if(label != null && label.length() > 0) {
+			Dimension d = rc.getVertexLabelRenderer().getVertexLabelRendererComponent(rc.getScreenDevice(), label,
+					rc.getVertexFontTransformer().transform(v), rc.getPickedVertexState().isPicked(v), v).getPreferredSize();
+			Rectangle2D labelBounds;
+			if(getVertexLabelRenderer().getPosition() == VertexLabel.Position.CNTR)
+				labelBounds = new Rectangle2D.Double(shapeBounds.getCenterX() - d.width / 2 - 1, shapeBounds.getCenterY() - d.height / 2 - 1, d.width + 2, d.height + 2);
+			else
+				// the label is placed next to the shape, 5 pixels away from it
+				labelBounds = grow(shapeBounds, Math.max(d.width, d.height) + 6);
+			bounds = bounds.createUnion(labelBounds);
+		}
+		return toScreen(rc, bounds, shapeBounds);
+	}
+
+	/**
+	 * calculates the area an edge is drawn in on the screen. the shape of a bent or looped edge is taken into account, as
+	 * well as its arrow and its label, which is moved away from the edge the more edges are parallel to it
+	 */
+	private Rectangle2D getEdgeBounds(RenderContext<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> rc, Layout<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> layout, SpatialPickSupport grid, de.chiller.vigral.graph.Edge e, boolean labels, boolean simpleEdges) {
+		Graph<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> graph = layout.getGraph();
+		de.chiller.vigral.graph.Vertex v1 = graph.getEndpoints(e).getFirst();
+		de.chiller.vigral.graph.Vertex v2 = graph.getEndpoints(e).getSecond();
+		Point2D p1 = rc.getMultiLayerTransformer().transform(Layer.LAYOUT, layout.transform(v1));
+		Point2D p2 = rc.getMultiLayerTransformer().transform(Layer.LAYOUT, layout.transform(v2));
+
+		if(simpleEdges) {
+			if(v1 == v2)
+				return null;
+			Rectangle2D bounds = new Rectangle2D.Double(p1.getX(), p1.getY(), 0, 0);
+			bounds.add(p2);
+			return toScreen(rc, grow(bounds, 1), null);
+		}
+
+		Shape shape = grid.getEdgeShape(layout, e);
+		if(shape == null)
+			return null;
+		Context<Graph<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge>, de.chiller.vigral.graph.Edge> context = Context.<Graph<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge>, de.chiller.vigral.graph.Edge>getInstance(graph, e);
+		Rectangle2D arrow = rc.getEdgeArrowTransformer().transform(context).getBounds2D();
+		double arrowSize = Math.max(arrow.getWidth(), arrow.getHeight());
+		Rectangle2D shapeBounds = grow(shape.getBounds2D(), getStrokeWidth(rc.getEdgeStrokeTransformer().transform(e)) / 2 + 1);
+		Rectangle2D bounds = grow(shape.getBounds2D(), arrowSize + getStrokeWidth(rc.getEdgeStrokeTransformer().transform(e)));
+
+		String label = labels ? rc.getEdgeLabelTransformer().transform(e) : null;
+		if(label != null && label.length() > 0) {
+			Dimension d = rc.getEdgeLabelRenderer().getEdgeLabelRendererComponent(rc.getScreenDevice(), label,
+					rc.getEdgeFontTransformer().transform(e), rc.getPickedEdgeState().isPicked(e), e).getPreferredSize();
+
+			// the label is placed on the line between the vertices, moved away from it by the label offset and by its
+			// height for every parallel edge (the same way the BasicEdgeLabelRenderer does), and may be rotated
+			double closeness = rc.getEdgeLabelClosenessTransformer().transform(context).doubleValue();
+			double x = p1.getX() + closeness * (p2.getX() - p1.getX());
+			double y = p1.getY() + closeness * (p2.getY() - p1.getY());
+			double offset = (1 + rc.getParallelEdgeIndexFunction().getIndex(graph, e)) * d.height;
+			Shape edgeShape = rc.getEdgeShapeTransformer().transform(context);
+			if(edgeShape instanceof Ellipse2D)
+				offset += edgeShape.getBounds2D().getHeight();
+			double radius = Math.abs(rc.getLabelOffset()) + offset + Math.sqrt(d.width * d.width + d.height * d.height) / 2 + 1;
+			bounds = bounds.createUnion(new Rectangle2D.Double(x - radius, y - radius, 2 * radius, 2 * radius));
+		}
+		return toScreen(rc, bounds, shapeBounds);
+	}
+
+	/**
+	 * transforms the bounds of an element into screen coordinates and remembers how far they reach beyond its shape
+	 * @param shapeBounds the bounds of the shape alone or null, if they do not matter
+	 */
+	private Rectangle2D toScreen(RenderContext<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> rc, Rectangle2D bounds, Rectangle2D shapeBounds) {
+		if(shapeBounds != null) {
+			double reach = Math.max(Math.max(shapeBounds.getMinX() - bounds.getMinX(), bounds.getMaxX() - shapeBounds.getMaxX()),
+					Math.max(shapeBounds.getMinY() - bounds.getMinY(), bounds.getMaxY() - shapeBounds.getMaxY()));
+			mReach = Math.max(mReach, reach);
+		}
+		return rc.getMultiLayerTransformer().transform(Layer.VIEW, bounds).getBounds2D();
+	}
+
+	private static Rectangle2D grow(Rectangle2D bounds, double size) {
+		return new Rectangle2D.Double(bounds.getX() - size, bounds.getY() - size, bounds.getWidth() + 2 * size, bounds.getHeight() + 2 * size);
+	}
+
+	private static double getStrokeWidth(Stroke stroke) {
+		return (stroke instanceof BasicStroke) ? ((BasicStroke) stroke).getLineWidth() : 1;
+	}
+
+	/**
+	 * draws an edge as a thin line between its vertices, without its shape, arrow and label
+	 */
+	private void renderSimpleEdge(RenderContext<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> rc, Layout<de.chiller.vigral.graph.Vertex, de.chiller.vigral.graph.Edge> layout, de.chiller.vigral.graph.Edge e) {
+		de.chiller.vigral.graph.Vertex v1 = layout.getGraph().getEndpoints(e).getFirst();
+		de.chiller.vigral.graph.Vertex v2 = layout.getGraph().getEndpoints(e).getSecond();
+		// a loop would be hidden by its vertex anyway
+		if(v1 == v2)
+			return;
+
+		Paint paint = rc.getEdgeDrawPaintTransformer().transform(e);
+		if(paint == null)
+			return;
+
+		Point2D p1 = rc.getMultiLayerTransformer().transform(Layer.LAYOUT, layout.transform(v1));
+		Point2D p2 = rc.getMultiLayerTransformer().transform(Layer.LAYOUT, layout.transform(v2));
+
+		GraphicsDecorator g = rc.getGraphicsContext();
+		Paint oldPaint = g.getPaint();
+		Stroke oldStroke = g.getStroke();
+		g.setPaint(paint);
+		g.setStroke(SIMPLE_EDGE_STROKE);
+		g.draw(new Line2D.Double(p1, p2));
+		g.setStroke(oldStroke);
+		g.setPaint(oldPaint);
+	}
+}
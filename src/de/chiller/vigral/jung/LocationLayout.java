@@ -0,0 +1,161 @@
+package de.chiller.vigral.jung;
+
+import java.awt.geom.Point2D;
+
+import cern.colt.map.OpenIntObjectHashMap;
+import de.chiller.vigral.graph.Edge;
+import de.chiller.vigral.graph.Vertex;
+import edu.uci.ics.jung.algorithms.layout.Layout;
+import edu.uci.ics.jung.algorithms.layout.LayoutDecorator;
+import edu.uci.ics.jung.algorithms.layout.StaticLayout;
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * this layout places the vertices at their own locations, moved into the bounds of the viewer if necessary. the
+ * positions are kept by the id of the vertex, so the graphs of all steps of an algorithm share them. a position is only
+ * computed again when the location of its vertex has changed, so showing another step does not cost anything for
+ * vertices that stayed where they were
+ * @author Simon Schiller
+ *
+ */
+public class LocationLayout extends StaticLayout<Vertex, Edge> {
+
+	private OpenIntObjectHashMap mPositions = new OpenIntObjectHashMap();
+
+	/**
+	 * the bounds the vertices are kept in
+	 */
+	private double mMin = Double.NEGATIVE_INFINITY;
+	private double mMaxX = Double.POSITIVE_INFINITY;
+	private double mMaxY = Double.POSITIVE_INFINITY;
+
+	/**
+	 * counts the changes that moved all positions at once
+	 */
+	private int mModCount;
+
+
+	/**
+	 * constructs the layout
+	 * @param graph the graph to lay out
+	 */
+	public LocationLayout(Graph<Vertex, Edge> graph) {
+		super(graph);
+	}
+
+	/**
+	 * sets the bounds the vertices are kept in. all positions are computed again when they are requested next
+	 * @param min the minimal x and y coordinate
+	 * @param maxX the maximal x coordinate
+	 * @param maxY the maximal y coordinate
+	 */
+	public void setBounds(double min, double maxX, double maxY) {
+		if(min == mMin && maxX == mMaxX && maxY == mMaxY)
+			return;
+
+		mMin = min;
+		mMaxX = maxX;
+		mMaxY = maxY;
+		mPositions.clear();
+		mModCount++;
+	}
+
+	/**
+	 * forgets all positions, so they are taken from the locations of the vertices again
+	 */
+	@Override
+	public void reset() {
+		mPositions.clear();
+		mModCount++;
+	}
+
+	/**
+	 * getter for the number of changes that moved all positions at once (a reset or new bounds)
+	 * @return returns the number of changes
+	 */
+	public int getModCount() {
+		return mModCount;
+	}
+
+	/**
+	 * getter for the number of changes that moved all positions of the location layout a layout is decorating. the
+	 * viewer wraps its layout into a caching one
+	 * @param layout the layout of a viewer
+	 * @return returns the number of changes or 0, if the layout is no location layout
+	 */
+	static int getModCount(Layout<Vertex, Edge> layout) {
+		while(layout instanceof LayoutDecorator)
+			layout = ((LayoutDecorator<Vertex, Edge>) layout).getDelegate();
+		if(layout instanceof LocationLayout)
+			return ((LocationLayout) layout).getModCount();
+		return 0;
+	}
+
+	@Override
+	public Point2D transform(Vertex v) {
+		Point2D location = v.getLocation();
+		Position p = (Position) mPositions.get(v.getId());
+		if(p == null) {
+			p = new Position();
+			mPositions.put(v.getId(), p);
+		}
+		else if(p.mSourceX == location.getX() && p.mSourceY == location.getY()) {
+			return p;
+		}
+
+		double x = location.getX();
+		double y = location.getY();
+		if(x < mMin)
+			x = mMin;
+		else if(x > mMaxX)
+			x = mMaxX;
+		if(y < mMin)
+			y = mMin;
+		else if(y > mMaxY)
+			y = mMaxY;
+		p.setLocation(x, y);
+
+		// the location may be the position itself, if the vertex has been moved with the mouse
+		p.mSourceX = location.getX();
+		p.mSourceY = location.getY();
+		return p;
+	}
+
+	@Override
+	public double getX(Vertex v) {
+		return transform(v).getX();
+	}
+
+	@Override
+	public double getY(Vertex v) {
+		return transform(v).getY();
+	}
+
+	@Override
+	public void setLocation(Vertex v, Point2D location) {
+		transform(v).setLocation(location);
+	}
+
+	@Override
+	public void setLocation(Vertex v, double x, double y) {
+		transform(v).setLocation(x, y);
+	}
+
+	@Override
+	protected void offsetVertex(Vertex v, double xOffset, double yOffset) {
+		Point2D p = transform(v);
+		p.setLocation(p.getX() + xOffset, p.getY() + yOffset);
+	}
+
+
+
+	/**
+	 * the position of a vertex and the location of the vertex it has been computed from
+	 */
+	private static class Position extends Point2D.Double {
+		private static final long serialVersionUID = 1L;
+
+		private double mSourceX = java.lang.Double.NaN;
+		private double mSourceY = java.lang.Double.NaN;
+	}
+}
@@ -1,6 +1,7 @@
 package de.chiller.vigral.jung;
 
 
+import java.awt.GraphicsEnvironment;
 import java.awt.KeyEventDispatcher;
 import java.awt.KeyboardFocusManager;
 import java.awt.event.KeyEvent;
@@ -235,7 +236,8 @@ public class MyGraphMousePlugin extends AbstractGraphMousePlugin implements Mous
     public void stopEditing() {
     	mEditingPossible = false;
     	changeMode(EDITING_MODE);
-    	if(VigralGUI.getInstance().getGraphBuilder() != null)
+    	// without a display (benchmarks) there is no main window whose picked vertices could be cleared
+    	if(!GraphicsEnvironment.isHeadless() && VigralGUI.getInstance().getGraphBuilder() != null)
     		mPicking.clearPickedCollection(VigralGUI.getInstance().getGraphBuilder().getVisualizationViewer());
     }
     
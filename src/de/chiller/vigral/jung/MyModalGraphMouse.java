@@ -1,6 +1,7 @@
 package de.chiller.vigral.jung;
 
 import java.awt.ItemSelectable;
+import java.awt.event.InputEvent;
 
 import de.chiller.vigral.graph.Edge;
 import de.chiller.vigral.graph.Vertex;
@@ -8,6 +9,9 @@ import edu.uci.ics.jung.visualization.MultiLayerTransformer;
 import edu.uci.ics.jung.visualization.RenderContext;
 import edu.uci.ics.jung.visualization.control.AbstractModalGraphMouse;
 import edu.uci.ics.jung.visualization.control.ModalGraphMouse;
+import edu.uci.ics.jung.visualization.control.ScalingGraphMousePlugin;
+import edu.uci.ics.jung.visualization.control.TranslatingGraphMousePlugin;
+import edu.uci.ics.jung.visualization.control.ViewScalingControl;
 
 public class MyModalGraphMouse extends AbstractModalGraphMouse implements ModalGraphMouse, ItemSelectable {
 	
@@ -35,15 +39,21 @@ public class MyModalGraphMouse extends AbstractModalGraphMouse implements ModalG
 	}
 
 	/**
-	 * create the plugins, and load the plugins
+	 * create the plugins, and load the plugins. the mouse wheel zooms and dragging with the middle button moves the
+	 * view in both modes. the view is scaled as a whole (vertices and labels get smaller as well), so the renderer can
+	 * leave out details when zoomed out
 	 *
 	 */
 	@Override
     protected void loadPlugins() {
 		mEditingPlugin = new MyGraphMousePlugin();
 		mPopupEditingPlugin = new MyPopupGraphMousePlugin();
+		scalingPlugin = new ScalingGraphMousePlugin(new ViewScalingControl(), 0, in, out);
+		translatingPlugin = new TranslatingGraphMousePlugin(InputEvent.BUTTON2_MASK);
 		add(mPopupEditingPlugin);
 		add(mEditingPlugin);
+		add(scalingPlugin);
+		add(translatingPlugin);
 	}
 
 	/**
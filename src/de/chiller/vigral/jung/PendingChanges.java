@@ -0,0 +1,66 @@
+package de.chiller.vigral.jung;
+
+import de.chiller.vigral.graph.Edge;
+import de.chiller.vigral.graph.GraphChanges;
+import de.chiller.vigral.graph.Vertex;
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * collects the changes between the graphs a viewer is given one after another, until they are used to update the
+ * viewer from the graph it has used last to the actual one. the changes of several graphs in a row are merged
+ * @author Simon Schiller
+ *
+ */
+class PendingChanges {
+
+	private Graph<Vertex, Edge> mFrom;
+	private Graph<Vertex, Edge> mTo;
+	private GraphChanges mChanges;
+
+
+	/**
+	 * adds the changes between two graphs
+	 * @param from the graph that has been given before
+	 * @param to the new graph
+	 * @param changes the changes or null, if they are not known
+	 */
+	void add(Graph<Vertex, Edge> from, Graph<Vertex, Edge> to, GraphChanges changes) {
+		if(from == to)
+			return;
+
+		if(changes == null) {
+			mChanges = null;
+			return;
+		}
+
+		if(mChanges == null || mTo != from) {
+			mFrom = from;
+			mChanges = new GraphChanges();
+		}
+		mChanges.addAll(changes);
+		mTo = to;
+
+		// updating more elements than the graph has is not cheaper than building everything again
+		if(mChanges.size() > to.getVertexCount() + to.getEdgeCount())
+			mChanges = null;
+	}
+
+	/**
+	 * forgets the collected changes, so the next update has to look at all elements
+	 */
+	void clear() {
+		mChanges = null;
+	}
+
+	/**
+	 * returns the collected changes and forgets them
+	 * @param from the graph the viewer has used last
+	 * @param to the actual graph
+	 * @return returns the changes between both graphs or null, if they are not known
+	 */
+	GraphChanges take(Graph<Vertex, Edge> from, Graph<Vertex, Edge> to) {
+		GraphChanges changes = (mChanges != null && mFrom == from && mTo == to) ? mChanges : null;
+		mChanges = null;
+		return changes;
+	}
+}
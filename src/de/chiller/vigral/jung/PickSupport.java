@@ -172,6 +172,8 @@ public class PickSupport {
 	            ((Vertex)v).updateLocation(vertexPoint);
 	            vertexPoint.setLocation(vertexPoint.getX()+dx, vertexPoint.getY()+dy);
 	            layout.setLocation(v, vertexPoint);
+	            if(vv.getPickSupport() instanceof SpatialPickSupport)
+	            	((SpatialPickSupport) vv.getPickSupport()).updateVertex(v);
 	        }
 	        
 	        
@@ -0,0 +1,518 @@
+package de.chiller.vigral.jung;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import cern.colt.list.IntArrayList;
+import cern.colt.map.OpenIntObjectHashMap;
+import cern.colt.map.OpenLongObjectHashMap;
+import de.chiller.vigral.graph.Edge;
+import de.chiller.vigral.graph.GraphChanges;
+import de.chiller.vigral.graph.Vertex;
+import edu.uci.ics.jung.algorithms.layout.Layout;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.Context;
+import edu.uci.ics.jung.visualization.Layer;
+import edu.uci.ics.jung.visualization.MultiLayerTransformer;
+import edu.uci.ics.jung.visualization.VisualizationServer;
+import edu.uci.ics.jung.visualization.picking.ShapePickSupport;
+
+/**
+ * this class finds the vertices and edges at a point or in a rectangle of the viewer. the bounds of the vertices and
+ * edges are kept in a grid of cells, so only the elements in the cells around the point have to be tested instead of the
+ * whole graph. the grid is updated by the EditSupport and the PickSupport when they add, move or delete elements. the
+ * cells hold the ids of the elements, so they stay valid for the graph of the next step of an algorithm, and only the
+ * vertices the step has moved are entered again. if the graph has been changed in another way, the grid is built again
+ * when it is used next
+ * @author Simon Schiller
+ *
+ */
+public class SpatialPickSupport extends ShapePickSupport<Vertex, Edge> {
+
+	/**
+	 * the width and height of a cell in layout coordinates
+	 */
+	private static final double CELL_SIZE = 64;
+
+	/**
+	 * edges whose bounds cover more cells are only entered into the cells along the line between their vertices
+	 */
+	private static final int MAX_BOUNDS_CELLS = 16;
+
+	/**
+	 * the ids of the elements in each cell
+	 */
+	private OpenLongObjectHashMap mVertexGrid = new OpenLongObjectHashMap();
+	private OpenLongObjectHashMap mEdgeGrid = new OpenLongObjectHashMap();
+
+	/**
+	 * the keys of the cells each element is entered in, by the ids of the elements
+	 */
+	private OpenIntObjectHashMap mVertexCells = new OpenIntObjectHashMap();
+	private OpenIntObjectHashMap mEdgeCells = new OpenIntObjectHashMap();
+
+	/**
+	 * the graph and the state of the layout the grid has been built for
+	 */
+	private de.chiller.vigral.graph.Graph mGraph;
+	private int mLayoutModCount;
+
+	/**
+	 * the changes of the graphs the viewer has been given since the grid has been updated
+	 */
+	private PendingChanges mPendingChanges = new PendingChanges();
+
+
+	/**
+	 * constructs the pick support
+	 * @param vv the visualisation viewer the elements are picked in
+	 */
+	public SpatialPickSupport(VisualizationServer<Vertex, Edge> vv) {
+		super(vv);
+	}
+
+
+	/**
+	 * tells the grid which elements have changed, when the viewer is given the graph of another step. has to be called
+	 * before the graph is set to the layout
+	 * @param from the graph the viewer has shown before
+	 * @param to the new graph
+	 * @param changes the vertices and edges that differ between both graphs or null, if they are not known
+	 */
+	public void setChanges(Graph<Vertex, Edge> from, Graph<Vertex, Edge> to, GraphChanges changes) {
+		mPendingChanges.add(from, to, changes);
+	}
+
+	/**
+	 * enters a new or moved vertex and its edges into the grid
+	 * @param v the vertex
+	 */
+	public void updateVertex(Vertex v) {
+		Layout<Vertex, Edge> layout = vv.getGraphLayout();
+		if(!isCurrent(layout))
+			return;
+
+		enterVertex(layout, v);
+	}
+
+	/**
+	 * enters a new edge into the grid. the edges parallel to it are entered again, because their shapes are bent
+	 * differently now
+	 * @param e the edge
+	 */
+	public void updateEdge(Edge e) {
+		Layout<Vertex, Edge> layout = vv.getGraphLayout();
+		if(!isCurrent(layout))
+			return;
+
+		Graph<Vertex, Edge> graph = layout.getGraph();
+		Vertex start = graph.getEndpoints(e).getFirst();
+		Vertex end = graph.getEndpoints(e).getSecond();
+		for(Edge parallel : graph.getIncidentEdges(start)) {
+			if(graph.getOpposite(start, parallel) == end) {
+				remove(mEdgeGrid, mEdgeCells, parallel.getId());
+				insert(mEdgeGrid, mEdgeCells, parallel.getId(), getEdgeCells(layout, parallel));
+			}
+		}
+	}
+
+	/**
+	 * removes a vertex and its edges from the grid. has to be called before the vertex is removed from the graph
+	 * @param v the vertex
+	 */
+	public void removeVertex(Vertex v) {
+		Layout<Vertex, Edge> layout = vv.getGraphLayout();
+		if(!isCurrent(layout))
+			return;
+
+		remove(mVertexGrid, mVertexCells, v.getId());
+		for(Edge e : layout.getGraph().getIncidentEdges(v))
+			remove(mEdgeGrid, mEdgeCells, e.getId());
+	}
+
+
+	/**
+	 * finds the vertices whose shapes may overlap an area. these are all vertices entered into the cells the area
+	 * overlaps, so some of them may lie a little outside of it
+	 * @param layout the layout of the graph
+	 * @param area the area in layout coordinates
+	 * @return returns the vertices near the area
+	 */
+	public Collection<Vertex> getVertexCandidates(Layout<Vertex, Edge> layout, Rectangle2D area) {
+		validate(layout);
+		return getVertices(area);
+	}
+
+	/**
+	 * finds the edges whose shapes may overlap an area. these are all edges entered into the cells the area overlaps,
+	 * so some of them may lie a little outside of it
+	 * @param layout the layout of the graph
+	 * @param area the area in layout coordinates
+	 * @return returns the edges near the area
+	 */
+	public Collection<Edge> getEdgeCandidates(Layout<Vertex, Edge> layout, Rectangle2D area) {
+		validate(layout);
+		return getEdges(area);
+	}
+
+
+	@Override
+	public Vertex getVertex(Layout<Vertex, Edge> layout, double x, double y) {
+		validate(layout);
+
+		MultiLayerTransformer transformer = vv.getRenderContext().getMultiLayerTransformer();
+		Point2D ip = transformer.inverseTransform(Layer.VIEW, new Point2D.Double(x, y));
+		Point2D lp = transformer.inverseTransform(Layer.LAYOUT, ip);
+
+		Vertex closest = null;
+		double minDistance = Double.MAX_VALUE;
+		for(Vertex v : getVertices(new Rectangle2D.Double(lp.getX(), lp.getY(), 0, 0))) {
+			if(verticesAreFiltered() && !isVertexRendered(Context.<Graph<Vertex, Edge>, Vertex>getInstance(layout.getGraph(), v)))
+				continue;
+
+			Shape shape = vv.getRenderContext().getVertexShapeTransformer().transform(v);
+			Point2D p = transformer.transform(Layer.LAYOUT, layout.transform(v));
+			double ox = ip.getX() - p.getX();
+			double oy = ip.getY() - p.getY();
+			if(shape.contains(ox, oy)) {
+				if(style == Style.LOWEST)
+					return v;
+				else if(style == Style.HIGHEST)
+					closest = v;
+				else {
+					// the vertex closest to the center of its shape
+					Rectangle2D bounds = shape.getBounds2D();
+					double dx = bounds.getCenterX() - ox;
+					double dy = bounds.getCenterY() - oy;
+					double dist = dx * dx + dy * dy;
+					if(dist < minDistance) {
+						minDistance = dist;
+						closest = v;
+					}
+				}
+			}
+		}
+		return closest;
+	}
+
+	@Override
+	public Collection<Vertex> getVertices(Layout<Vertex, Edge> layout, Shape shape) {
+		validate(layout);
+
+		MultiLayerTransformer transformer = vv.getRenderContext().getMultiLayerTransformer();
+		shape = transformer.inverseTransform(Layer.VIEW, shape);
+		Rectangle2D area = transformer.inverseTransform(Layer.LAYOUT, shape).getBounds2D();
+
+		Set<Vertex> picked = new HashSet<Vertex>();
+		for(Vertex v : getVertices(area)) {
+			if(verticesAreFiltered() && !isVertexRendered(Context.<Graph<Vertex, Edge>, Vertex>getInstance(layout.getGraph(), v)))
+				continue;
+
+			Point2D p = transformer.transform(Layer.LAYOUT, layout.transform(v));
+			if(shape.contains(p))
+				picked.add(v);
+		}
+		return picked;
+	}
+
+	@Override
+	public Edge getEdge(Layout<Vertex, Edge> layout, double x, double y) {
+		validate(layout);
+
+		MultiLayerTransformer transformer = vv.getRenderContext().getMultiLayerTransformer();
+		Point2D ip = transformer.inverseTransform(Layer.VIEW, new Point2D.Double(x, y));
+		x = ip.getX();
+		y = ip.getY();
+
+		// a line has no area, so the edges are tested against a small rectangle around the point
+		Rectangle2D pickArea = new Rectangle2D.Float((float) x - pickSize / 2, (float) y - pickSize / 2, pickSize, pickSize);
+		Rectangle2D area = transformer.inverseTransform(Layer.LAYOUT, pickArea).getBounds2D();
+
+		Edge closest = null;
+		double minDistance = Double.MAX_VALUE;
+		for(Edge e : getEdges(area)) {
+			if(edgesAreFiltered() && !isEdgeRendered(Context.<Graph<Vertex, Edge>, Edge>getInstance(layout.getGraph(), e)))
+				continue;
+
+			Shape edgeShape = getEdgeShape(layout, e);
+			if(edgeShape == null || !edgeShape.intersects(pickArea))
+				continue;
+
+			// the distance is measured to the first point of the path, like the ShapePickSupport does
+			float cx = 0;
+			float cy = 0;
+			float[] f = new float[6];
+			PathIterator pi = new GeneralPath(edgeShape).getPathIterator(null);
+			if(!pi.isDone()) {
+				pi.next();
+				pi.currentSegment(f);
+				cx = f[0];
+				cy = f[1];
+			}
+			double dx = cx - x;
+			double dy = cy - y;
+			double dist = dx * dx + dy * dy;
+			if(dist < minDistance) {
+				minDistance = dist;
+				closest = e;
+			}
+		}
+		return closest;
+	}
+
+
+	/**
+	 * checks whether the grid belongs to the graph and the state of the given layout
+	 */
+	private boolean isCurrent(Layout<Vertex, Edge> layout) {
+		return mGraph == layout.getGraph() && mLayoutModCount == LocationLayout.getModCount(layout);
+	}
+
+	/**
+	 * updates the grid, if the graph or the layout has been changed without updating the grid. the graph of another step
+	 * with known changes only enters the moved vertices again, otherwise the grid is built again
+	 */
+	private void validate(Layout<Vertex, Edge> layout) {
+		Graph<Vertex, Edge> graph = layout.getGraph();
+		if(isCurrent(layout) && graph.getVertexCount() == mVertexCells.size() && graph.getEdgeCount() == mEdgeCells.size())
+			return;
+
+		GraphChanges changes = (graph != mGraph) ? mPendingChanges.take(mGraph, graph) : null;
+		de.chiller.vigral.graph.Graph last = mGraph;
+		mGraph = (de.chiller.vigral.graph.Graph) graph;
+		if(changes != null && mLayoutModCount == LocationLayout.getModCount(layout)) {
+			IntArrayList ids = changes.getVertexIds();
+			for(int i = 0; i < ids.size(); i++) {
+				Vertex v = mGraph.getVertexById(ids.get(i));
+				Vertex old = last.getVertexById(ids.get(i));
+				if(v != null && (old == null || !v.getLocation().equals(old.getLocation())))
+					enterVertex(layout, v);
+			}
+			return;
+		}
+
+		mVertexGrid.clear();
+		mEdgeGrid.clear();
+		mVertexCells.clear();
+		mEdgeCells.clear();
+		mLayoutModCount = LocationLayout.getModCount(layout);
+
+		for(Vertex v : graph.getVertices())
+			insert(mVertexGrid, mVertexCells, v.getId(), getVertexCells(layout, v));
+		for(Edge e : graph.getEdges())
+			insert(mEdgeGrid, mEdgeCells, e.getId(), getEdgeCells(layout, e));
+	}
+
+	/**
+	 * enters a vertex and its edges into the grid again
+	 */
+	private void enterVertex(Layout<Vertex, Edge> layout, Vertex v) {
+		remove(mVertexGrid, mVertexCells, v.getId());
+		insert(mVertexGrid, mVertexCells, v.getId(), getVertexCells(layout, v));
+		for(Edge e : layout.getGraph().getIncidentEdges(v)) {
+			remove(mEdgeGrid, mEdgeCells, e.getId());
+			insert(mEdgeGrid, mEdgeCells, e.getId(), getEdgeCells(layout, e));
+		}
+	}
+
+	/**
+	 * finds the cells the shape of a vertex overlaps
+	 */
+	private long[] getVertexCells(Layout<Vertex, Edge> layout, Vertex v) {
+		MultiLayerTransformer transformer = vv.getRenderContext().getMultiLayerTransformer();
+		Point2D p = transformer.transform(Layer.LAYOUT, layout.transform(v));
+		Shape shape = vv.getRenderContext().getVertexShapeTransformer().transform(v);
+		shape = AffineTransform.getTranslateInstance(p.getX(), p.getY()).createTransformedShape(shape);
+
+		Set<Long> keys = new HashSet<Long>();
+		addCells(keys, transformer.inverseTransform(Layer.LAYOUT, shape).getBounds2D());
+		return toArray(keys);
+	}
+
+	/**
+	 * finds the cells the shape of an edge overlaps. a long edge is only entered into the cells along the line between
+	 * its vertices, as far as the shape of the edge bends away from it, and not into all cells of its bounds
+	 */
+	private long[] getEdgeCells(Layout<Vertex, Edge> layout, Edge e) {
+		Shape shape = getEdgeShape(layout, e);
+		if(shape == null)
+			return new long[0];
+
+		MultiLayerTransformer transformer = vv.getRenderContext().getMultiLayerTransformer();
+		Set<Long> keys = new HashSet<Long>();
+		Rectangle2D bounds = transformer.inverseTransform(Layer.LAYOUT, shape).getBounds2D();
+		int[] range = getCellRange(bounds);
+		Vertex v1 = layout.getGraph().getEndpoints(e).getFirst();
+		Vertex v2 = layout.getGraph().getEndpoints(e).getSecond();
+		if(v1 == v2 || (long) (range[2] - range[0] + 1) * (range[3] - range[1] + 1) <= MAX_BOUNDS_CELLS) {
+			addCells(keys, bounds);
+			return toArray(keys);
+		}
+
+		// the shape of the edge is stretched along the line between the vertices, but it is not scaled across it
+		Point2D p1 = layout.transform(v1);
+		Point2D p2 = layout.transform(v2);
+		Rectangle2D raw = vv.getRenderContext().getEdgeShapeTransformer().transform(Context.<Graph<Vertex, Edge>, Edge>getInstance(layout.getGraph(), e)).getBounds2D();
+		double dx = p2.getX() - p1.getX();
+		double dy = p2.getY() - p1.getY();
+		double length = Math.sqrt(dx * dx + dy * dy);
+		double step = CELL_SIZE / 2;
+		double margin = Math.max(Math.abs(raw.getMinY()), Math.abs(raw.getMaxY())) / transformer.getTransformer(Layer.LAYOUT).getScale() + step / 2;
+		double start = Math.min(0, raw.getMinX()) * length;
+		double end = Math.max(1, raw.getMaxX()) * length;
+		for(double t = start; t < end + step; t += step) {
+			double d = Math.min(t, end) / length;
+			addCells(keys, new Rectangle2D.Double(p1.getX() + dx * d - margin, p1.getY() + dy * d - margin, 2 * margin, 2 * margin));
+		}
+		return toArray(keys);
+	}
+
+	/**
+	 * places the shape of an edge between its vertices, the same way the ShapePickSupport does
+	 * @param layout the layout of the graph
+	 * @param e the edge
+	 * @return returns the shape of the edge before the view transformation or null, if a vertex has no position
+	 */
+	Shape getEdgeShape(Layout<Vertex, Edge> layout, Edge e) {
+		MultiLayerTransformer transformer = vv.getRenderContext().getMultiLayerTransformer();
+		Vertex v1 = layout.getGraph().getEndpoints(e).getFirst();
+		Vertex v2 = layout.getGraph().getEndpoints(e).getSecond();
+		Point2D p1 = transformer.transform(Layer.LAYOUT, layout.transform(v1));
+		Point2D p2 = transformer.transform(Layer.LAYOUT, layout.transform(v2));
+		if(p1 == null || p2 == null)
+			return null;
+
+		AffineTransform xform = AffineTransform.getTranslateInstance(p1.getX(), p1.getY());
+		Shape edgeShape = vv.getRenderContext().getEdgeShapeTransformer().transform(Context.<Graph<Vertex, Edge>, Edge>getInstance(layout.getGraph(), e));
+		if(v1 == v2) {
+			// loops are as big as the vertex and centered in it
+			Rectangle2D vertexBounds = vv.getRenderContext().getVertexShapeTransformer().transform(v2).getBounds2D();
+			xform.scale(vertexBounds.getWidth(), vertexBounds.getHeight());
+			xform.translate(0, -edgeShape.getBounds2D().getHeight() / 2);
+		}
+		else {
+			double dx = p2.getX() - p1.getX();
+			double dy = p2.getY() - p1.getY();
+			xform.rotate(Math.atan2(dy, dx));
+			xform.scale(Math.sqrt(dx * dx + dy * dy), 1.0);
+		}
+		return xform.createTransformedShape(edgeShape);
+	}
+
+
+	/**
+	 * enters an element into the given cells
+	 */
+	private void insert(OpenLongObjectHashMap grid, OpenIntObjectHashMap cells, int id, long[] keys) {
+		cells.put(id, keys);
+		for(long key : keys) {
+			IntArrayList cell = (IntArrayList) grid.get(key);
+			if(cell == null) {
+				cell = new IntArrayList(4);
+				grid.put(key, cell);
+			}
+			cell.add(id);
+		}
+	}
+
+	/**
+	 * removes an element from all cells it has been entered in
+	 */
+	private void remove(OpenLongObjectHashMap grid, OpenIntObjectHashMap cells, int id) {
+		long[] keys = (long[]) cells.get(id);
+		if(keys == null)
+			return;
+
+		cells.removeKey(id);
+		for(long key : keys) {
+			IntArrayList cell = (IntArrayList) grid.get(key);
+			if(cell == null)
+				continue;
+			int index = cell.indexOf(id);
+			if(index >= 0)
+				cell.remove(index);
+			if(cell.isEmpty())
+				grid.removeKey(key);
+		}
+	}
+
+	/**
+	 * collects the vertices of all cells the area overlaps
+	 */
+	private Collection<Vertex> getVertices(Rectangle2D area) {
+		// a vertex entered into several cells would be found more than once
+		Set<Vertex> vertices = new HashSet<Vertex>();
+		for(IntArrayList cell : getCells(mVertexGrid, area)) {
+			for(int i = 0; i < cell.size(); i++) {
+				Vertex v = mGraph.getVertexById(cell.getQuick(i));
+				if(v != null)
+					vertices.add(v);
+			}
+		}
+		return vertices;
+	}
+
+	/**
+	 * collects the edges of all cells the area overlaps
+	 */
+	private Collection<Edge> getEdges(Rectangle2D area) {
+		Set<Edge> edges = new HashSet<Edge>();
+		for(IntArrayList cell : getCells(mEdgeGrid, area)) {
+			for(int i = 0; i < cell.size(); i++) {
+				Edge e = mGraph.getEdgeById(cell.getQuick(i));
+				if(e != null)
+					edges.add(e);
+			}
+		}
+		return edges;
+	}
+
+	private ArrayList<IntArrayList> getCells(OpenLongObjectHashMap grid, Rectangle2D area) {
+		int[] range = getCellRange(area);
+		ArrayList<IntArrayList> cells = new ArrayList<IntArrayList>();
+		for(int cx = range[0]; cx <= range[2]; cx++) {
+			for(int cy = range[1]; cy <= range[3]; cy++) {
+				IntArrayList cell = (IntArrayList) grid.get(getKey(cx, cy));
+				if(cell != null)
+					cells.add(cell);
+			}
+		}
+		return cells;
+	}
+
+	private void addCells(Set<Long> keys, Rectangle2D bounds) {
+		int[] range = getCellRange(bounds);
+		for(int cx = range[0]; cx <= range[2]; cx++)
+			for(int cy = range[1]; cy <= range[3]; cy++)
+				keys.add(getKey(cx, cy));
+	}
+
+	private long[] toArray(Set<Long> keys) {
+		long[] array = new long[keys.size()];
+		int i = 0;
+		for(long key : keys)
+			array[i++] = key;
+		return array;
+	}
+
+	private int[] getCellRange(Rectangle2D bounds) {
+		return new int[] {
+				(int) Math.floor(bounds.getMinX() / CELL_SIZE),
+				(int) Math.floor(bounds.getMinY() / CELL_SIZE),
+				(int) Math.floor(bounds.getMaxX() / CELL_SIZE),
+				(int) Math.floor(bounds.getMaxY() / CELL_SIZE)
+		};
+	}
+
+	private long getKey(int cx, int cy) {
+		return ((long) cx << 32) | (cy & 0xffffffffL);
+	}
+}
@@ -0,0 +1,559 @@
+package de.chiller.vigral.jung;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import cern.colt.list.IntArrayList;
+import cern.colt.map.OpenIntIntHashMap;
+import cern.colt.map.OpenIntObjectHashMap;
+import de.chiller.vigral.graph.Edge;
+import de.chiller.vigral.graph.GraphChanges;
+import de.chiller.vigral.graph.Vertex;
+import edu.uci.ics.jung.algorithms.layout.Layout;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.visualization.Layer;
+import edu.uci.ics.jung.visualization.RenderContext;
+import edu.uci.ics.jung.visualization.transform.shape.GraphicsDecorator;
+
+/**
+ * keeps the rendered graph in an image of the size of the viewer, which is divided into tiles. only the tiles that
+ * contain an element that has been changed, added or removed are drawn again, everything else is copied from the image.
+ * a tile is drawn again with every element whose drawn bounds (including its label and arrow) reach into it, so nothing
+ * that overlaps the tile is erased. the elements are kept by their ids, so this also works for the new graph of every
+ * step of an algorithm. if the changes of the step are known, only the changed elements are looked at, otherwise all
+ * visible elements are compared with the ones of the previous frame. if the view has been moved or resized, the whole
+ * image is drawn again
+ * @author Simon Schiller
+ *
+ */
+public class TileCache {
+
+	/**
+	 * the width and height of a tile in pixels
+	 */
+	public static final int TILE_SIZE = 256;
+
+	/**
+	 * draws the elements of the graph
+	 */
+	public interface Painter {
+		/**
+		 * calculates the area a vertex is drawn in, including its label
+		 * @param v the vertex
+		 * @return returns the bounds on the screen or null, if the vertex is not drawn
+		 */
+		public Rectangle2D getBounds(Vertex v);
+
+		/**
+		 * calculates the area an edge is drawn in, including its arrow and label
+		 * @param e the edge
+		 * @return returns the bounds on the screen or null, if the edge is not drawn
+		 */
+		public Rectangle2D getBounds(Edge e);
+
+		/**
+		 * draws the given elements with the graphics context of the render context
+		 * @param vertices the vertices
+		 * @param edges the edges
+		 */
+		public void paint(Collection<Vertex> vertices, Collection<Edge> edges);
+	}
+
+	private BufferedImage mImage;
+	private AffineTransform mViewTransform;
+	private Object[] mRenderKey;
+
+	/**
+	 * the graph and the state of the layout the image has been drawn for
+	 */
+	private de.chiller.vigral.graph.Graph mGraph;
+	private int mLayoutModCount;
+
+	/**
+	 * what has been drawn for the elements in the image
+	 */
+	private Drawings mVertices = new Drawings();
+	private Drawings mEdges = new Drawings();
+
+	/**
+	 * the tiles that have to be drawn again
+	 */
+	private boolean[][] mDirty;
+	private int mDirtyCount;
+
+	/**
+	 * the changes of the graphs the viewer has been given since the last frame
+	 */
+	private PendingChanges mPendingChanges = new PendingChanges();
+
+
+	/**
+	 * forces the whole image to be drawn again in the next frame
+	 */
+	public void invalidate() {
+		mImage = null;
+	}
+
+	/**
+	 * tells the cache which elements have changed, when the viewer is given the graph of another step
+	 * @param from the graph the viewer has shown before
+	 * @param to the new graph
+	 * @param changes the vertices and edges that differ between both graphs or null, if they are not known
+	 */
+	public void setChanges(Graph<Vertex, Edge> from, Graph<Vertex, Edge> to, GraphChanges changes) {
+		mPendingChanges.add(from, to, changes);
+	}
+
+	/**
+	 * forgets the changes of the steps, if anything else may have changed as well. the next frame compares all visible
+	 * elements then
+	 */
+	public void clearChanges() {
+		mPendingChanges.clear();
+	}
+
+	/**
+	 * returns the changes between the graph of the image and the graph of the layout, if the image can be updated with
+	 * them only
+	 * @param rc the render context of the viewer
+	 * @param layout the layout of the graph
+	 * @return returns the changes or null, if all visible elements have to be compared
+	 */
+	public GraphChanges getChanges(RenderContext<Vertex, Edge> rc, Layout<Vertex, Edge> layout) {
+		Graph<Vertex, Edge> graph = layout.getGraph();
+		if(graph == mGraph)
+			return null;
+
+		GraphChanges changes = mPendingChanges.take(mGraph, graph);
+		if(changes == null || !isCurrent(rc) || mLayoutModCount != LocationLayout.getModCount(layout))
+			return null;
+		return changes;
+	}
+
+	/**
+	 * getter for the number of edges in the image
+	 * @return returns the number of edges
+	 */
+	public int getEdgeCount() {
+		return mEdges.mDrawn.size();
+	}
+
+	/**
+	 * draws the image of the graph with the graphics context of the render context. the visible elements are compared
+	 * with the ones of the previous frame and the tiles that contain changed elements are drawn again before
+	 * @param rc the render context of the viewer
+	 * @param layout the layout of the graph
+	 * @param vertices the vertices that may be visible
+	 * @param edges the edges that may be visible
+	 * @param renderKey the values (like the level of detail) that change the appearance of all elements
+	 * @param painter draws the elements
+	 */
+	public void paint(RenderContext<Vertex, Edge> rc, Layout<Vertex, Edge> layout,
+			Collection<Vertex> vertices, Collection<Edge> edges, Object[] renderKey, Painter painter) {
+		Dimension d = rc.getScreenDevice().getSize();
+		if(d.width <= 0 || d.height <= 0)
+			return;
+
+		boolean redrawAll = !isCurrent(rc) || !Arrays.equals(renderKey, mRenderKey);
+		if(redrawAll) {
+			if(mImage == null || mImage.getWidth() != d.width || mImage.getHeight() != d.height)
+				mImage = new BufferedImage(d.width, d.height, BufferedImage.TYPE_INT_RGB);
+			mViewTransform = new AffineTransform(rc.getMultiLayerTransformer().getTransformer(Layer.VIEW).getTransform());
+			mRenderKey = renderKey;
+			int columns = (d.width + TILE_SIZE - 1) / TILE_SIZE;
+			int rows = (d.height + TILE_SIZE - 1) / TILE_SIZE;
+			mDirty = new boolean[columns][rows];
+			mDirtyCount = 0;
+			mVertices = new Drawings(columns, rows);
+			mEdges = new Drawings(columns, rows);
+		}
+		mGraph = (de.chiller.vigral.graph.Graph) layout.getGraph();
+		mLayoutModCount = LocationLayout.getModCount(layout);
+
+		// the elements are compared even if everything is drawn again, so they are known in the next frame
+		Rectangle screen = new Rectangle(0, 0, d.width, d.height);
+		OpenIntIntHashMap visible = new OpenIntIntHashMap(vertices.size());
+		for(Vertex v : vertices) {
+			Drawn drawn = getDrawn(rc, layout, v, painter, screen);
+			if(drawn != null) {
+				replace(mVertices, v.getId(), drawn);
+				visible.put(v.getId(), 0);
+			}
+		}
+		removeHidden(mVertices, visible);
+		visible = new OpenIntIntHashMap(edges.size());
+		for(Edge e : edges) {
+			Drawn drawn = getDrawn(rc, layout, e, painter, screen);
+			if(drawn != null) {
+				replace(mEdges, e.getId(), drawn);
+				visible.put(e.getId(), 0);
+			}
+		}
+		removeHidden(mEdges, visible);
+
+		if(redrawAll) {
+			for(boolean[] column : mDirty)
+				Arrays.fill(column, false);
+			mDirtyCount = 0;
+		}
+		draw(rc, redrawAll, painter);
+	}
+
+	/**
+	 * updates the image with the changes between the graph of the image and the graph of the layout and draws it with the
+	 * graphics context of the render context. only the changed elements, the edges of moved vertices and the picked
+	 * elements are looked at
+	 * @param rc the render context of the viewer
+	 * @param layout the layout of the graph
+	 * @param changes the changes returned by getChanges
+	 * @param renderKey the values (like the level of detail) that change the appearance of all elements
+	 * @param painter draws the elements
+	 * @return returns false, if the appearance of all elements has changed and they have to be painted instead
+	 */
+	public boolean update(RenderContext<Vertex, Edge> rc, Layout<Vertex, Edge> layout, GraphChanges changes,
+			Object[] renderKey, Painter painter) {
+		if(!Arrays.equals(renderKey, mRenderKey))
+			return false;
+
+		de.chiller.vigral.graph.Graph last = mGraph;
+		mGraph = (de.chiller.vigral.graph.Graph) layout.getGraph();
+		Rectangle screen = new Rectangle(0, 0, mImage.getWidth(), mImage.getHeight());
+
+		IntArrayList ids = changes.getVertexIds();
+		for(int i = 0; i < ids.size(); i++) {
+			Vertex v = mGraph.getVertexById(ids.get(i));
+			if(v == null)
+				continue;
+			replace(mVertices, v.getId(), getDrawn(rc, layout, v, painter, screen));
+
+			// the edges of a moved vertex are moved as well
+			Vertex old = last.getVertexById(v.getId());
+			if(old == null || !old.getLocation().equals(v.getLocation()))
+				for(Edge e : mGraph.getIncidentEdges(v))
+					replace(mEdges, e.getId(), getDrawn(rc, layout, e, painter, screen));
+		}
+		ids = changes.getEdgeIds();
+		for(int i = 0; i < ids.size(); i++) {
+			Edge e = mGraph.getEdgeById(ids.get(i));
+			if(e != null)
+				replace(mEdges, e.getId(), getDrawn(rc, layout, e, painter, screen));
+		}
+
+		// the elements picked in the previous graph are not picked in the new one
+		ids = mVertices.mPicked.keys();
+		for(Vertex v : rc.getPickedVertexState().getPicked())
+			ids.add(v.getId());
+		for(int i = 0; i < ids.size(); i++) {
+			Vertex v = mGraph.getVertexById(ids.get(i));
+			replace(mVertices, ids.get(i), (v == null) ? null : getDrawn(rc, layout, v, painter, screen));
+		}
+		ids = mEdges.mPicked.keys();
+		for(Edge e : rc.getPickedEdgeState().getPicked())
+			ids.add(e.getId());
+		for(int i = 0; i < ids.size(); i++) {
+			Edge e = mGraph.getEdgeById(ids.get(i));
+			replace(mEdges, ids.get(i), (e == null) ? null : getDrawn(rc, layout, e, painter, screen));
+		}
+
+		draw(rc, false, painter);
+		return true;
+	}
+
+
+	/**
+	 * checks whether the image has the size of the viewer and has been drawn with its view
+	 */
+	private boolean isCurrent(RenderContext<Vertex, Edge> rc) {
+		Dimension d = rc.getScreenDevice().getSize();
+		AffineTransform viewTransform = rc.getMultiLayerTransformer().getTransformer(Layer.VIEW).getTransform();
+		return mImage != null && mImage.getWidth() == d.width && mImage.getHeight() == d.height
+				&& viewTransform.equals(mViewTransform);
+	}
+
+	/**
+	 * draws the whole image or the dirty tiles into the image and the image with the graphics context of the render
+	 * context
+	 */
+	private void draw(RenderContext<Vertex, Edge> rc, boolean redrawAll, Painter painter) {
+		GraphicsDecorator g = rc.getGraphicsContext();
+		if(redrawAll || mDirtyCount > 0) {
+			Graphics2D g2d = mImage.createGraphics();
+			g2d.setRenderingHints(g.getRenderingHints());
+			Graphics2D screen = g.getDelegate();
+			g.setDelegate(g2d);
+			try {
+				if(redrawAll)
+					drawAll(rc, g2d, painter);
+				else
+					drawDirtyTiles(rc, g2d, painter);
+			} finally {
+				g.setDelegate(screen);
+				g2d.dispose();
+			}
+		}
+
+		// the image is drawn in screen coordinates, without the view transformation the graphics context has got
+		try {
+			AffineTransform device = g.getTransform();
+			device.concatenate(mViewTransform.createInverse());
+			g.drawImage(mImage, device, null);
+		} catch (NoninvertibleTransformException e) {
+			mImage = null;
+		}
+	}
+
+	/**
+	 * draws all elements into the image
+	 */
+	private void drawAll(RenderContext<Vertex, Edge> rc, Graphics2D g2d, Painter painter) {
+		draw(rc, g2d, new Rectangle(0, 0, mImage.getWidth(), mImage.getHeight()),
+				getVertices(mVertices.mDrawn.keys()), getEdges(mEdges.mDrawn.keys()), painter);
+	}
+
+	/**
+	 * draws all dirty tiles, rows of dirty tiles are drawn together with all elements that reach into them
+	 */
+	private void drawDirtyTiles(RenderContext<Vertex, Edge> rc, Graphics2D g2d, Painter painter) {
+		Rectangle image = new Rectangle(0, 0, mImage.getWidth(), mImage.getHeight());
+		for(int ty = 0; ty < mDirty[0].length; ty++) {
+			int tx = 0;
+			while(tx < mDirty.length) {
+				if(!mDirty[tx][ty]) {
+					tx++;
+					continue;
+				}
+				int start = tx;
+				while(tx < mDirty.length && mDirty[tx][ty])
+					mDirty[tx++][ty] = false;
+
+				Rectangle tiles = new Rectangle(start * TILE_SIZE, ty * TILE_SIZE, (tx - start) * TILE_SIZE, TILE_SIZE);
+				tiles = tiles.intersection(image);
+				draw(rc, g2d, tiles, getVertices(mVertices.getIds(start, tx - 1, ty, tiles)),
+						getEdges(mEdges.getIds(start, tx - 1, ty, tiles)), painter);
+			}
+		}
+		mDirtyCount = 0;
+	}
+
+	private ArrayList<Vertex> getVertices(IntArrayList ids) {
+		ArrayList<Vertex> vertices = new ArrayList<Vertex>(ids.size());
+		for(int i = 0; i < ids.size(); i++) {
+			Vertex v = mGraph.getVertexById(ids.get(i));
+			if(v != null)
+				vertices.add(v);
+		}
+		return vertices;
+	}
+
+	private ArrayList<Edge> getEdges(IntArrayList ids) {
+		ArrayList<Edge> edges = new ArrayList<Edge>(ids.size());
+		for(int i = 0; i < ids.size(); i++) {
+			Edge e = mGraph.getEdgeById(ids.get(i));
+			if(e != null)
+				edges.add(e);
+		}
+		return edges;
+	}
+
+	/**
+	 * clears a part of the image and lets the painter draw the given elements into it
+	 */
+	private void draw(RenderContext<Vertex, Edge> rc, Graphics2D g2d, Rectangle clip,
+			Collection<Vertex> vertices, Collection<Edge> edges, Painter painter) {
+		g2d.setTransform(new AffineTransform());
+		g2d.setClip(clip);
+		Color background = rc.getScreenDevice().getBackground();
+		g2d.setColor(background == null ? Color.WHITE : background);
+		g2d.fill(clip);
+		g2d.transform(mViewTransform);
+		painter.paint(vertices, edges);
+	}
+
+
+	/**
+	 * replaces what has been drawn for an element and marks the tiles of the old and the new drawing as dirty, if they
+	 * differ
+	 * @param drawn the new drawing or null, if the element is not visible anymore
+	 */
+	private void replace(Drawings drawings, int id, Drawn drawn) {
+		Drawn old = (Drawn) drawings.mDrawn.get(id);
+		if(old == null && drawn == null)
+			return;
+		if(old != null && drawn != null && old.mBounds.equals(drawn.mBounds) && Arrays.equals(old.mValues, drawn.mValues))
+			return;
+
+		if(old != null) {
+			markDirty(old.mBounds);
+			drawings.remove(id, old);
+		}
+		if(drawn != null) {
+			markDirty(drawn.mBounds);
+			drawings.add(id, drawn);
+		}
+	}
+
+	/**
+	 * removes all elements that have been drawn before, but are not visible anymore
+	 */
+	private void removeHidden(Drawings drawings, OpenIntIntHashMap visible) {
+		IntArrayList ids = drawings.mDrawn.keys();
+		for(int i = 0; i < ids.size(); i++) {
+			if(!visible.containsKey(ids.get(i)))
+				replace(drawings, ids.get(i), null);
+		}
+	}
+
+	private void markDirty(Rectangle2D bounds) {
+		int[] range = getTileRange(bounds, mDirty.length, mDirty[0].length);
+		for(int tx = range[0]; tx <= range[2]; tx++) {
+			for(int ty = range[1]; ty <= range[3]; ty++) {
+				if(!mDirty[tx][ty]) {
+					mDirty[tx][ty] = true;
+					mDirtyCount++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * finds the tiles the bounds overlap
+	 * @return returns the first and last column and row, the last ones are smaller than the first ones if there is none
+	 */
+	private static int[] getTileRange(Rectangle2D bounds, int columns, int rows) {
+		return new int[] {
+				Math.max(0, (int) Math.floor(bounds.getMinX() / TILE_SIZE)),
+				Math.max(0, (int) Math.floor(bounds.getMinY() / TILE_SIZE)),
+				Math.min(columns - 1, (int) Math.floor(bounds.getMaxX() / TILE_SIZE)),
+				Math.min(rows - 1, (int) Math.floor(bounds.getMaxY() / TILE_SIZE))
+		};
+	}
+
+
+	/**
+	 * collects what is drawn for a vertex, if it is visible
+	 */
+	private Drawn getDrawn(RenderContext<Vertex, Edge> rc, Layout<Vertex, Edge> layout, Vertex v, Painter painter, Rectangle screen) {
+		Rectangle2D bounds = painter.getBounds(v);
+		if(bounds == null || !bounds.intersects(screen))
+			return null;
+
+		Point2D p = layout.transform(v);
+		boolean picked = rc.getPickedVertexState().isPicked(v);
+		return new Drawn(bounds, picked, new Object[] {
+				p.getX(),
+				p.getY(),
+				rc.getVertexFillPaintTransformer().transform(v),
+				rc.getVertexDrawPaintTransformer().transform(v),
+				rc.getVertexLabelTransformer().transform(v),
+				rc.getVertexFontTransformer().transform(v),
+				picked
+		});
+	}
+
+	/**
+	 * collects what is drawn for an edge, if it is visible
+	 */
+	private Drawn getDrawn(RenderContext<Vertex, Edge> rc, Layout<Vertex, Edge> layout, Edge e, Painter painter, Rectangle screen) {
+		Rectangle2D bounds = painter.getBounds(e);
+		if(bounds == null || !bounds.intersects(screen))
+			return null;
+
+		Point2D p1 = layout.transform(layout.getGraph().getEndpoints(e).getFirst());
+		Point2D p2 = layout.transform(layout.getGraph().getEndpoints(e).getSecond());
+		boolean picked = rc.getPickedEdgeState().isPicked(e);
+		return new Drawn(bounds, picked, new Object[] {
+				p1.getX(),
+				p1.getY(),
+				p2.getX(),
+				p2.getY(),
+				layout.getGraph().getEdgeType(e),
+				rc.getEdgeDrawPaintTransformer().transform(e),
+				rc.getEdgeLabelTransformer().transform(e),
+				rc.getEdgeFontTransformer().transform(e),
+				picked
+		});
+	}
+
+
+
+	/**
+	 * what has been drawn for an element and where
+	 */
+	private static class Drawn {
+		private Rectangle2D mBounds;
+		private boolean mPicked;
+		private Object[] mValues;
+
+		private Drawn(Rectangle2D bounds, boolean picked, Object[] values) {
+			mBounds = bounds;
+			mPicked = picked;
+			mValues = values;
+		}
+	}
+
+
+	/**
+	 * what has been drawn for the vertices or the edges by their ids, the ids of the elements reaching into each tile
+	 * and the ids of the picked elements
+	 */
+	private static class Drawings {
+		private OpenIntObjectHashMap mDrawn = new OpenIntObjectHashMap();
+		private OpenIntIntHashMap[][] mTiles;
+		private OpenIntIntHashMap mPicked = new OpenIntIntHashMap();
+
+		private Drawings() {
+			this(0, 0);
+		}
+
+		private Drawings(int columns, int rows) {
+			mTiles = new OpenIntIntHashMap[columns][rows];
+			for(int tx = 0; tx < columns; tx++)
+				for(int ty = 0; ty < rows; ty++)
+					mTiles[tx][ty] = new OpenIntIntHashMap();
+		}
+
+		private void add(int id, Drawn drawn) {
+			mDrawn.put(id, drawn);
+			if(drawn.mPicked)
+				mPicked.put(id, 0);
+			int[] range = getTileRange(drawn.mBounds, mTiles.length, mTiles[0].length);
+			for(int tx = range[0]; tx <= range[2]; tx++)
+				for(int ty = range[1]; ty <= range[3]; ty++)
+					mTiles[tx][ty].put(id, 0);
+		}
+
+		private void remove(int id, Drawn drawn) {
+			mDrawn.removeKey(id);
+			mPicked.removeKey(id);
+			int[] range = getTileRange(drawn.mBounds, mTiles.length, mTiles[0].length);
+			for(int tx = range[0]; tx <= range[2]; tx++)
+				for(int ty = range[1]; ty <= range[3]; ty++)
+					mTiles[tx][ty].removeKey(id);
+		}
+
+		/**
+		 * collects the elements of a row of tiles whose bounds overlap the area
+		 */
+		private IntArrayList getIds(int firstColumn, int lastColumn, int row, Rectangle area) {
+			OpenIntIntHashMap found = new OpenIntIntHashMap();
+			for(int tx = firstColumn; tx <= lastColumn; tx++) {
+				IntArrayList ids = mTiles[tx][row].keys();
+				for(int i = 0; i < ids.size(); i++) {
+					if(!found.containsKey(ids.get(i)) && ((Drawn) mDrawn.get(ids.get(i))).mBounds.intersects(area))
+						found.put(ids.get(i), 0);
+				}
+			}
+			return found.keys();
+		}
+	}
+}
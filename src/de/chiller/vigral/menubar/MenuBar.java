@@ -37,7 +37,7 @@ public class MenuBar extends JMenuBar {
 		@Override
 		public void actionPerformed(ActionEvent e) {
 			FileOperator fo = FileOperator.getInstance();
-			fo.saveGraphToFile(VigralGUI.getInstance().getGraphBuilder().getGraph());
+			fo.saveGraphToFile(VigralGUI.getInstance().getGraphBuilder().getGraphView());
 		}
 	};
 	
@@ -53,7 +53,7 @@ public class MenuBar extends JMenuBar {
 				break;
 			case JOptionPane.YES_OPTION:
 				FileOperator fo = FileOperator.getInstance();
-				boolean saved = fo.saveGraphToFile(VigralGUI.getInstance().getGraphBuilder().getGraph());
+				boolean saved = fo.saveGraphToFile(VigralGUI.getInstance().getGraphBuilder().getGraphView());
 				if(saved)
 					openGraph();
 				break;
@@ -105,7 +105,7 @@ public class MenuBar extends JMenuBar {
 					mainInstance.changeMode(VigralGUI.Mode.GRAPHCREATION);
 				
 				FileOperator fo = FileOperator.getInstance();
-				boolean saved = fo.saveGraphToFile(mainInstance.getGraphBuilder().getGraph());
+				boolean saved = fo.saveGraphToFile(mainInstance.getGraphBuilder().getGraphView());
 				if(saved) {
 					mainInstance.getGraphBuilder().resetGraph();
 					Vertex.VertexFactory.getInstance().resetIdCounter();
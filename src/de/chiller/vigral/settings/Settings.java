@@ -63,6 +63,11 @@ public class Settings {
 	private static ArrayList<String> mViewKeyset = initViewKeyset();
 	private static ArrayList<String> mLabelKeyset= initLabelKeyset();
 	
+	/**
+	 * counts the changes of the settings, so cached values (like colors and fonts) can tell if they are outdated
+	 */
+	private int mVersion = 0;
+	
 	private static Settings mSettings = null;
 	
 	private Settings() {
@@ -130,6 +135,7 @@ public class Settings {
 		mViewSettings.put(VIEW_WEIGHT, DEF_VIEW_WEIGHT);
 		mViewSettings.put(VIEW_MIN_CAPACITY, DEF_VIEW_MIN_CAPACITY);
 		mViewSettings.put(VIEW_MAX_CAPACITY, DEF_VIEW_MAX_CAPACITY);
+		mVersion++;
 	}
 	
 	/**
@@ -143,6 +149,7 @@ public class Settings {
 		mColorSettings.put(COLOR_FINISHED_AND_RELEVANT, DEF_COLOR_FINISHED_AND_RELEVANT);
 		mColorSettings.put(COLOR_FINISHED_AND_NOT_RELEVANT, DEF_COLOR_FINISHED_AND_NOT_RELEVANT);
 		mColorSettings.put(COLOR_PICKED, DEF_COLOR_PICKED);
+		mVersion++;
 	}
 	
 	/**
@@ -154,12 +161,14 @@ public class Settings {
 		mKeySettings.put(KEY_DIRECTED_EDGE, DEF_KEY_DIRECTED_EDGE);
 		mKeySettings.put(KEY_MULTIPLE_SELECT, DEF_KEY_MULTIPLE_SELECT);
 		mKeySettings.put(KEY_RECTANGULAR_SELECT, DEF_KEY_RECTANGULAR_SELECT);
+		mVersion++;
 	}
 	
 	public void restoreDefaultLabels() {
 		mLabelSettings = new HashMap<String, Integer>();
 		mLabelSettings.put(LABEL_VERTEX, DEF_LABEL_VERTEX);
 		mLabelSettings.put(LABEL_EDGE, DEF_LABEL_EDGE);
+		mVersion++;
 	}
 	
 	/**
@@ -193,6 +202,7 @@ public class Settings {
 			ErrorDialog.showErrorDialog(null, "cannot load label settings", e);
 			restoreDefaultLabels();
 		}
+		mVersion++;
 	}
 
 
@@ -207,6 +217,14 @@ public class Settings {
 		}
 	}
 	
+	/**
+	 * getter for the version of the settings. it changes whenever a setting is updated or restored
+	 * @return returns the number of changes of the settings
+	 */
+	public int getVersion() {
+		return mVersion;
+	}
+	
 	/**
 	 * returns the demanded color
 	 * @param whatColor the color that should be returned
@@ -246,10 +264,12 @@ public class Settings {
 	 */
 	public void updateColorSetting(String whatColor, String val) {
 		mColorSettings.put(whatColor, val);
+		mVersion++;
 	}
 	
 	public void updateLabelSetting(String whatLabel, int val) {
 		mLabelSettings.put(whatLabel, val);
+		mVersion++;
 	}
 	
 	/**
@@ -259,6 +279,7 @@ public class Settings {
 	 */
 	public void updateKeySetting(String whatKey, int val) {
 		mKeySettings.put(whatKey, val);
+		mVersion++;
 	}
 	
 	/**
@@ -268,6 +289,7 @@ public class Settings {
 	 */
 	public void updateViewSetting(String whatView, boolean val) {
 		mViewSettings.put(whatView, val);
+		mVersion++;
 	}
 	
 	/**
@@ -0,0 +1,233 @@
+package de.chiller.vigral.util;
+
+import java.awt.geom.Point2D;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import de.chiller.vigral.graph.Edge;
+import de.chiller.vigral.graph.Graph;
+import de.chiller.vigral.graph.Vertex;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+
+/**
+ * reads and writes graphs in a binary, column oriented format. every attribute of the vertices and edges is stored as
+ * fixed width column, the labels are stored once in a string table. a file is read into a buffer at once, so no
+ * text has to be parsed when opening large graphs. the buffer is not memory mapped, because a mapped file stays
+ * locked on some systems until the buffer is garbage collected and could not be saved again.
+ *
+ * layout (big endian):
+ * header: magic, version, number of vertices (n), number of edges (m), number of strings (s)
+ * vertices: int id[n], int label[n] (index into the string table), double x[n], double y[n]
+ * edges: int id[m], int start[m], int end[m] (vertex ids), double weight[m], double minCapacity[m],
+ * double maxCapacity[m], byte directed[m]
+ * string table: int offset[s+1], the utf-8 bytes of all strings
+ * @author Simon Schiller
+ *
+ */
+class BinaryGraphFile {
+
+	/**
+	 * the first four bytes of a binary graph file ("VGRB")
+	 */
+	private static final int MAGIC = 0x56475242;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 5 * 4;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+
+	private BinaryGraphFile() {}
+
+	/**
+	 * indicates if the given file starts like a binary graph file
+	 * @param file the file
+	 * @return returns true if the file is a binary graph file and false otherwise
+	 * @throws IOException if the file could not be read
+	 */
+	static boolean isBinaryGraphFile(File file) throws IOException {
+		if(file.length() < HEADER_SIZE)
+			return false;
+
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			return raf.readInt() == MAGIC;
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * writes the graph to the given file
+	 * @param g the graph
+	 * @param file the file
+	 * @throws IOException if the file could not be written
+	 */
+	static void write(Graph g, File file) throws IOException {
+		// collect the string table
+		ArrayList<String> strings = new ArrayList<String>();
+		HashMap<String, Integer> stringIndices = new HashMap<String, Integer>();
+		int[] labels = new int[g.getVertexCount()];
+		int i = 0;
+		for(Vertex v : g.getVertices()) {
+			Integer index = stringIndices.get(v.getLabel());
+			if(index == null) {
+				index = strings.size();
+				strings.add(v.getLabel());
+				stringIndices.put(v.getLabel(), index);
+			}
+			labels[i++] = index;
+		}
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(g.getVertexCount());
+			out.writeInt(g.getEdgeCount());
+			out.writeInt(strings.size());
+
+			for(Vertex v : g.getVertices())
+				out.writeInt(v.getId());
+			for(int label : labels)
+				out.writeInt(label);
+			for(Vertex v : g.getVertices())
+				out.writeDouble(v.getLocation().getX());
+			for(Vertex v : g.getVertices())
+				out.writeDouble(v.getLocation().getY());
+
+			for(Edge e : g.getEdges())
+				out.writeInt(e.getId());
+			for(Edge e : g.getEdges())
+				out.writeInt(e.getStartVertex().getId());
+			for(Edge e : g.getEdges())
+				out.writeInt(e.getEndVertex().getId());
+			for(Edge e : g.getEdges())
+				out.writeDouble(e.getWeight());
+			for(Edge e : g.getEdges())
+				out.writeDouble(e.getMinCapacity());
+			for(Edge e : g.getEdges())
+				out.writeDouble(e.getMaxCapacity());
+			for(Edge e : g.getEdges())
+				out.writeByte(e.isDirected() ? 1 : 0);
+
+			ArrayList<byte[]> bytes = new ArrayList<byte[]>(strings.size());
+			int offset = 0;
+			out.writeInt(offset);
+			for(String s : strings) {
+				byte[] b = s.getBytes(StandardCharsets.UTF_8);
+				bytes.add(b);
+				offset += b.length;
+				out.writeInt(offset);
+			}
+			for(byte[] b : bytes)
+				out.write(b);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * reads a graph from the given file
+	 * @param file the file
+	 * @return returns the graph
+	 * @throws IOException if the file could not be read or is no valid binary graph file
+	 */
+	static Graph read(File file) throws IOException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			FileChannel channel = in.getChannel();
+			if(channel.size() > Integer.MAX_VALUE)
+				throw new IOException(file +" is too large");
+
+			ByteBuffer buf = ByteBuffer.allocate((int) channel.size());
+			while(buf.hasRemaining()) {
+				if(channel.read(buf) < 0)
+					throw new IOException(file +" has been truncated while reading");
+			}
+			buf.flip();
+			return read(buf);
+		} catch(BufferUnderflowException e) {
+			throw new IOException(file +" is no valid binary graph file", e);
+		} catch(IndexOutOfBoundsException e) {
+			throw new IOException(file +" is no valid binary graph file", e);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static Graph read(ByteBuffer buf) throws IOException {
+		if(buf.getInt() != MAGIC)
+			throw new IOException("no binary graph file");
+		int version = buf.getInt();
+		if(version != VERSION)
+			throw new IOException("unsupported version "+ version +" of the binary graph file");
+
+		int n = buf.getInt();
+		int m = buf.getInt();
+		int s = buf.getInt();
+		if(n < 0 || m < 0 || s < 0)
+			throw new IOException("no valid binary graph file");
+
+		// the start of every column
+		int vertexIds = HEADER_SIZE;
+		int vertexLabels = vertexIds + 4 * n;
+		int vertexX = vertexLabels + 4 * n;
+		int vertexY = vertexX + 8 * n;
+		int edgeIds = vertexY + 8 * n;
+		int edgeStarts = edgeIds + 4 * m;
+		int edgeEnds = edgeStarts + 4 * m;
+		int edgeWeights = edgeEnds + 4 * m;
+		int edgeMinCapacities = edgeWeights + 8 * m;
+		int edgeMaxCapacities = edgeMinCapacities + 8 * m;
+		int edgeDirected = edgeMaxCapacities + 8 * m;
+		int stringOffsets = edgeDirected + m;
+		int stringBytes = stringOffsets + 4 * (s + 1);
+
+		// decode the string table at once
+		byte[] bytes = new byte[buf.getInt(stringOffsets + 4 * s)];
+		buf.position(stringBytes);
+		buf.get(bytes);
+		String[] strings = new String[s];
+		for(int i = 0; i < s; i++) {
+			int start = buf.getInt(stringOffsets + 4 * i);
+			int end = buf.getInt(stringOffsets + 4 * (i + 1));
+			strings[i] = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+		}
+
+		Graph g = new Graph();
+
+		for(int i = 0; i < n; i++) {
+			Point2D location = new Point2D.Double(buf.getDouble(vertexX + 8 * i), buf.getDouble(vertexY + 8 * i));
+			String label = strings[buf.getInt(vertexLabels + 4 * i)];
+			g.addVertex(Vertex.VertexFactory.getInstance().create(buf.getInt(vertexIds + 4 * i), label, location));
+		}
+
+		for(int i = 0; i < m; i++) {
+			Vertex start = g.getVertexById(buf.getInt(edgeStarts + 4 * i));
+			Vertex end = g.getVertexById(buf.getInt(edgeEnds + 4 * i));
+			if(start == null || end == null)
+				throw new IOException("edge "+ buf.getInt(edgeIds + 4 * i) +" has no valid end vertices");
+
+			Edge e = Edge.EdgeFactory.getInstance().create(buf.getInt(edgeIds + 4 * i), buf.getDouble(edgeWeights + 8 * i),
+					buf.getDouble(edgeMinCapacities + 8 * i), buf.getDouble(edgeMaxCapacities + 8 * i), start, end,
+					buf.get(edgeDirected + i) != 0);
+			if(e.isDirected())
+				g.addEdge(e, start, end, EdgeType.DIRECTED);
+			else
+				g.addEdge(e, start, end, EdgeType.UNDIRECTED);
+		}
+
+		return g;
+	}
+}
@@ -20,6 +20,13 @@ public class ErrorDialog {
 	
 	public static void showErrorDialog(JFrame parent, String title, Exception e) {
 		
+		// without a display (e.g. when running the batch runner) just print the error
+		if(GraphicsEnvironment.isHeadless()) {
+			System.err.println(title);
+			e.printStackTrace();
+			return;
+		}
+		
 		// create and configure a text area - fill it with exception text.
 		final JTextArea textArea = new JTextArea();
 		textArea.setFont(new Font("Sans-Serif", Font.PLAIN, 10));
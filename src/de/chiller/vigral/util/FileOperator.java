@@ -1,22 +1,20 @@
 package de.chiller.vigral.util;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
-import java.util.Set;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 import javax.swing.JFileChooser;
-import javax.swing.JFrame;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -53,13 +51,23 @@ public class FileOperator {
 	private final static int OPEN_DIALOG = 0;
 	private final static int SAVE_DIALOG = 1;
 	
-	private static JFrame mParentFrame = VigralGUI.getInstance();
+	/**
+	 * the names of the zip entries of a graph file
+	 */
+	private final static String VERTICES_ENTRY = "Vertices";
+	private final static String EDGES_ENTRY = "Edges";
+	private final static int BUFFER_SIZE = 64 * 1024;
+	
+	/**
+	 * graphs saved to files with this extension are written in the binary format instead of the zip format
+	 */
+	public final static String BINARY_EXTENSION = ".vgb";
+	
 	private static FileOperator mFileOperator = new FileOperator();
 	
 	private File mFile;
 	private String mDialogPath = System.getProperty("user.dir");
 	private String mSettingsFile = "config.xml";
-	private ArrayList<File> mFileList = new ArrayList<File>();
 	
 	/**
 	 * singleton getter for the instance
@@ -84,24 +92,54 @@ public class FileOperator {
 		
 		try {
 			
-			writeToFile(g);
-			zipFiles();
-			if(!deleteTemporaryFiles()) {
-				System.out.println("The temp files could NOT be deleted");
-			}
+			saveGraphToFile(g, mFile);
 			System.out.println("file successfully saved!");
 			return true;
 			
 		} catch(Exception e) {
 			ErrorDialog.showErrorDialog(null, "The graph could not be saved", e);
-			if(!deleteTemporaryFiles()) {
-				System.out.println("The temp files could NOT be deleted");
-			}
 			return false;
 		}
 
 	}
 	
+	/**
+	 * saves the graph to the given file without showing a dialog. if the file name ends with BINARY_EXTENSION, the
+	 * graph is written in the binary format. otherwise the vertices and edges are written as csv directly into the
+	 * entries "Vertices" and "Edges" of a zip file
+	 * @param g the graph to save
+	 * @param file the file to save the graph to
+	 * @throws IOException if the graph could not be written
+	 */
+	public void saveGraphToFile(final Graph g, File file) throws IOException {
+		setFile(file);
+		
+		if(mFile.getName().toLowerCase().endsWith(BINARY_EXTENSION)) {
+			BinaryGraphFile.write(g, mFile);
+			return;
+		}
+		
+		ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(mFile), BUFFER_SIZE));
+		try {
+			// the writer must not be closed, because that would close the zip stream as well
+			CSVWriter writer = new CSVWriter(new OutputStreamWriter(zos));
+			
+			zos.putNextEntry(new ZipEntry(VERTICES_ENTRY));
+			for(Vertex v : g.getVertices())
+				writer.writeNext(v.toStringArray());
+			writer.flush();
+			zos.closeEntry();
+			
+			zos.putNextEntry(new ZipEntry(EDGES_ENTRY));
+			for(Edge e : g.getEdges())
+				writer.writeNext(e.toStringArray());
+			writer.flush();
+			zos.closeEntry();
+		} finally {
+			zos.close();
+		}
+	}
+	
 	/**
 	 * reads and parses a graph from a file
 	 * @return returns the loaded graph or null, if an error occured
@@ -113,26 +151,41 @@ public class FileOperator {
 		}
 		
 		
+		try {
+			return readGraphFromFile(mFile);
+		} catch(Exception e) {
+			ErrorDialog.showErrorDialog(null, "The graph could not be loaded", e);
+			return null;
+		}
+		
+	}
+	
+	/**
+	 * reads and parses a graph from the given file without showing a dialog. the format (binary or zip) is recognized
+	 * by the content of the file
+	 * @param file the file to read the graph from
+	 * @return returns the loaded graph
+	 * @throws IOException if the file could not be read or does not contain a graph
+	 */
+	public Graph readGraphFromFile(File file) throws IOException {
+		setFile(file);
+		
 		try {
 			Vertex.VertexFactory.getInstance().backupID();
 			Edge.EdgeFactory.getInstance().backupID();
-			unzipFiles();
-			Graph graph = parseGraphFromFiles();
-			if(!deleteTemporaryFiles()) {
-				System.out.println("the temp files have NOT been deleted");
-			}
-			return graph;
+			if(BinaryGraphFile.isBinaryGraphFile(mFile))
+				return BinaryGraphFile.read(mFile);
+			return parseGraphFromZip();
 			
-		} catch(Exception e) {
-			ErrorDialog.showErrorDialog(null, "The graph could not be loaded", e);
+		} catch(IOException e) {
 			Vertex.VertexFactory.getInstance().restoreID();
 			Edge.EdgeFactory.getInstance().restoreID();
-			if(!deleteTemporaryFiles()) {
-				System.out.println("the temp files have NOT been deleted");
-			}
-			return null;
+			throw e;
+		} catch(RuntimeException e) {
+			Vertex.VertexFactory.getInstance().restoreID();
+			Edge.EdgeFactory.getInstance().restoreID();
+			throw e;
 		}
-		
 	}
 	
 	
@@ -141,132 +194,71 @@ public class FileOperator {
 
 		int retVal;
 		if(option == OPEN_DIALOG)
-			retVal = fc.showOpenDialog(mParentFrame);
+			retVal = fc.showOpenDialog(VigralGUI.getInstance());
 		else
-			retVal = fc.showSaveDialog(mParentFrame);
+			retVal = fc.showSaveDialog(VigralGUI.getInstance());
 		
 		if(retVal == JFileChooser.CANCEL_OPTION)
 			return false;
 		
-		mFile = fc.getSelectedFile();
+		setFile(fc.getSelectedFile());
 		mDialogPath = mFile.getParent();
-		mFileList.clear();
-		mFileList.add(new File(mFile.getParent() + File.separator +"Vertices"));
-		mFileList.add(new File(mFile.getParent() + File.separator +"Edges"));
 		return true;
 	}
 	
 	
-	private boolean writeToFile(final Graph g) throws IOException {
-		
-		CSVWriter writer = new CSVWriter(new FileWriter(mFileList.get(0)));
-		for(Vertex v : g.getVertices())
-			writer.writeNext(v.toStringArray());
-		writer.close();
-		
-		writer = new CSVWriter(new FileWriter(mFileList.get(1)));
-		for(Edge e : g.getEdges())
-			writer.writeNext(e.toStringArray());
-		writer.close();
-		
-		return true;
+	private void setFile(File file) {
+		mFile = file.getAbsoluteFile();
 	}
 	
 	
-	private boolean zipFiles() throws IOException {
-		
-		byte[] buffer = new byte[1024];
-		
-		FileOutputStream fos = new FileOutputStream(mFile);
-		ZipOutputStream zos = new ZipOutputStream(fos);
-		
-		for(File file : mFileList) {
-		
-			ZipEntry entry = new ZipEntry(file.getName());
-			zos.putNextEntry(entry);
-			
-			FileInputStream fis = new FileInputStream(file);
-			
-			int length;
-			while((length = fis.read(buffer)) > 0)
-				zos.write(buffer, 0, length);
-		
-			fis.close();
+	/**
+	 * reads the graph entry by entry from the zip file. the rows are parsed while they are read, so no entry has to
+	 * be held in memory as a whole
+	 * @return returns the graph
+	 * @throws IOException if the file could not be read, is no zip file or does not contain both entries
+	 */
+	private Graph parseGraphFromZip() throws IOException {
+		ZipFile zip;
+		try {
+			zip = new ZipFile(mFile);
+		} catch(ZipException e) {
+			throw new IOException(mFile.getName() +" is no graph file", e);
 		}
 		
-		zos.closeEntry();
-		zos.close();
-			
-		
-		return true;
-	}
-	
-	
-	private boolean unzipFiles() throws IOException {
-		
-		byte[] buffer = new byte[1024];
-		
-
-		ZipInputStream zis = new ZipInputStream(new FileInputStream(mFile));
-		ZipEntry entry = zis.getNextEntry();
-		
-		while(entry != null) {
-			
-			String filename = entry.getName();
-			File f = new File(mFile.getParent() + File.separator + filename);
+		try {
+			ZipEntry vertices = zip.getEntry(VERTICES_ENTRY);
+			ZipEntry edges = zip.getEntry(EDGES_ENTRY);
+			if(vertices == null || edges == null)
+				throw new IOException(mFile.getName() +" does not contain the entries '"+ VERTICES_ENTRY +"' and '"+ EDGES_ENTRY +"'");
 			
-			FileOutputStream fos = new FileOutputStream(f);
+			Graph graph = new Graph();
+			String[] row;
 			
-			int length;
-			while((length = zis.read(buffer)) > 0)
-				fos.write(buffer, 0, length);
+			CSVReader reader = openEntry(zip, vertices);
+			try {
+				while((row = reader.readNext()) != null)
+					graph.addParsedVertex(row);
+			} finally {
+				reader.close();
+			}
 			
-			fos.close();
-			entry = zis.getNextEntry();
-		}
-		
-		zis.closeEntry();
-		zis.close();
-		
-		return true;
-	}
-	
-	
-	
-	private boolean deleteTemporaryFiles() {
-		
-		for(File file : mFileList) {
+			reader = openEntry(zip, edges);
+			try {
+				while((row = reader.readNext()) != null)
+					graph.addParsedEdge(row);
+			} finally {
+				reader.close();
+			}
 			
-			if(file.exists())
-				file.delete();
+			return graph;
+		} finally {
+			zip.close();
 		}
-		
-		return true;
 	}
 	
-	private Graph parseGraphFromFiles() throws IOException {
-		List<String[]> strVertices;
-		List<String[]> strEdges;
-		
-		Graph graph = null;
-
-		for(File file : mFileList)
-			if(!file.exists()) { return null; }
-		
-		CSVReader reader;
-		
-		reader = new CSVReader(new FileReader(mFileList.get(0)));
-		strVertices = reader.readAll();
-		reader.close();
-
-		reader = new CSVReader(new FileReader(mFileList.get(1)));
-		strEdges = reader.readAll();
-		reader.close();
-		
-		graph = Graph.parseGraph(strVertices, strEdges);
-			
-
-		return graph;
+	private static CSVReader openEntry(ZipFile zip, ZipEntry entry) throws IOException {
+		return new CSVReader(new BufferedReader(new InputStreamReader(zip.getInputStream(entry)), BUFFER_SIZE));
 	}
 	
 	
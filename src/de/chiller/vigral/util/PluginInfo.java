@@ -0,0 +1,150 @@
+package de.chiller.vigral.util;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import de.chiller.vigral.algorithm.AbstractAlgorithm;
+import de.chiller.vigral.graph.ElementType;
+
+
+/**
+ * describes an installed plugin by the metadata the PluginLoader found for it (the name of the algorithm and its
+ * requirements) and creates the instances of its algorithm. the class of the plugin is only loaded, when the first
+ * instance is created
+ * @author Simon Schiller
+ *
+ */
+public class PluginInfo {
+
+	private File mFile;
+	private ClassLoader mLoader;
+	private String mClassName;
+	private String mName;
+	private ArrayList<Pair<ElementType, String>> mRequirements;
+	private Class<? extends AbstractAlgorithm> mClass;
+
+
+	/**
+	 * constructs the info of a plugin
+	 * @param file the class or jar file of the plugin
+	 * @param loader the class loader the plugin is loaded with
+	 * @param className the name of the class that implements the algorithm
+	 * @param name the name of the algorithm
+	 * @param requirements the requirements of the algorithm or null, if it has none
+	 */
+	PluginInfo(File file, ClassLoader loader, String className, String name, ArrayList<Pair<ElementType, String>> requirements) {
+		mFile = file;
+		mLoader = loader;
+		mClassName = className;
+		mName = name;
+		mRequirements = requirements;
+	}
+
+	/**
+	 * getter for the file of the plugin
+	 * @return returns the class or jar file
+	 */
+	public File getFile() {
+		return mFile;
+	}
+
+	/**
+	 * getter for the name of the class that implements the algorithm
+	 * @return returns the fully qualified class name
+	 */
+	public String getClassName() {
+		return mClassName;
+	}
+
+	/**
+	 * getter for the name of the algorithm
+	 * @return returns the human readable name of the algorithm
+	 */
+	public String getName() {
+		return mName;
+	}
+
+	/**
+	 * getter for the requirements of the algorithm as declared by the plugin
+	 * @return returns the requirements or null, if the algorithm has none
+	 */
+	public ArrayList<Pair<ElementType, String>> getRequirements() {
+		return mRequirements;
+	}
+
+	/**
+	 * creates a new instance of the algorithm of the plugin. every run of an algorithm should use its own instance, so
+	 * the steps it recorded are released together with it
+	 * @return returns the new algorithm
+	 * @throws ReflectiveOperationException if the class could not be loaded or instantiated
+	 */
+	public AbstractAlgorithm createAlgorithm() throws ReflectiveOperationException {
+		return getAlgorithmClass().newInstance();
+	}
+
+	/**
+	 * loads the class of the algorithm, when it is requested first
+	 */
+	private synchronized Class<? extends AbstractAlgorithm> getAlgorithmClass() throws ReflectiveOperationException {
+		if(mClass == null) {
+			Class<?> clss;
+			try {
+				clss = mLoader.loadClass(mClassName);
+			} catch (LinkageError e) {
+				throw new ClassNotFoundException(mClassName, e);
+			}
+
+			if(!AbstractAlgorithm.class.isAssignableFrom(clss))
+				throw new InstantiationException(mClassName +" does not extend AbstractAlgorithm");
+
+			mClass = clss.asSubclass(AbstractAlgorithm.class);
+		}
+
+		return mClass;
+	}
+
+	@Override
+	public String toString() {
+		return mName;
+	}
+
+
+	/**
+	 * converts requirements into the form used in the metadata of plugins: "TYPE:description" separated by ';'
+	 * @param requirements the requirements or null
+	 * @return returns the requirements as string
+	 */
+	public static String formatRequirements(ArrayList<Pair<ElementType, String>> requirements) {
+		if(requirements == null)
+			return "";
+
+		String out = "";
+		for(Pair<ElementType, String> r : requirements) {
+			if(!out.isEmpty())
+				out += ";";
+			out += r.getL().name() +":"+ r.getR().replace(';', ',');
+		}
+		return out;
+	}
+
+	/**
+	 * parses the requirements from the metadata of a plugin
+	 * @param requirements the requirements in the form "TYPE:description" separated by ';'
+	 * @return returns the list of requirements or null, if there are none
+	 * @throws IllegalArgumentException if a requirement is not in the expected form
+	 */
+	public static ArrayList<Pair<ElementType, String>> parseRequirements(String requirements) {
+		if(requirements == null || requirements.trim().isEmpty())
+			return null;
+
+		ArrayList<Pair<ElementType, String>> list = new ArrayList<Pair<ElementType, String>>();
+		for(String r : requirements.split(";")) {
+			int colon = r.indexOf(':');
+			if(colon < 0)
+				throw new IllegalArgumentException("requirement '"+ r +"' is not of the form TYPE:description");
+			ElementType type = ElementType.valueOf(r.substring(0, colon).trim());
+			list.add(new Pair<ElementType, String>(type, r.substring(colon + 1).trim()));
+		}
+		return list;
+	}
+}
@@ -1,30 +1,84 @@
 package de.chiller.vigral.util;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Modifier;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 
 import de.chiller.vigral.algorithm.AbstractAlgorithm;
+import de.chiller.vigral.graph.ElementType;
 
 
 /**
- * singleton class loads the algorithms as plugins
+ * singleton class loads the algorithms as plugins. only the metadata of a plugin (the class, the name of the algorithm
+ * and its requirements) is read when the plugins are loaded, the class itself is loaded when the algorithm is used.
+ * the metadata is taken from the manifest of a jar (attributes "Vigral-Algorithm-Class", "Vigral-Algorithm-Name" and
+ * "Vigral-Algorithm-Requirements") or from a properties file named like the plugin (keys "class", "name" and
+ * "requirements"). the requirements are given as "TYPE:description" separated by ';', e.g.
+ * "VERTEX:start vertex;OPTIONAL_VERTEX:end vertex". plugins without a name in their metadata are instantiated once
+ * and what is found out is remembered in an index file in the temp directory, until the plugin is changed
  * @author Simon Schiller
  *
  */
 public class PluginLoader {
 
+	/**
+	 * the prefix and extension of the index files in the temp directory, there is one file per plugin directory
+	 */
+	private static final String INDEX_PREFIX = "vigral-plugins-";
+	private static final String INDEX_EXTENSION = ".index";
+	/**
+	 * the maximal number of plugins that are read at the same time
+	 */
+	private static final int MAX_THREADS = 4;
+
+	/**
+	 * the manifest attributes of a plugin jar
+	 */
+	public static final String MANIFEST_CLASS = "Vigral-Algorithm-Class";
+	public static final String MANIFEST_NAME = "Vigral-Algorithm-Name";
+	public static final String MANIFEST_REQUIREMENTS = "Vigral-Algorithm-Requirements";
+
+	/**
+	 * the keys of the properties file next to a plugin and of its entries in the index
+	 */
+	public static final String KEY_CLASS = "class";
+	public static final String KEY_NAME = "name";
+	public static final String KEY_REQUIREMENTS = "requirements";
+	private static final String KEY_STAMP = "stamp";
+
 	private File mPluginDir;
 	private static final PluginLoader mPluginLoader = new PluginLoader();
-	
+
+	/**
+	 * the class loaders of the plugins loaded last. they are closed when the plugins are loaded again
+	 */
+	private ArrayList<URLClassLoader> mClassLoaders = new ArrayList<URLClassLoader>();
+
 	private PluginLoader() {
 		mPluginDir = new File(System.getProperty("user.dir") + File.separator + "plugins");
 	}
-	
+
 	/**
 	 * getter for the singleton instance
 	 * @return the only instance of this class
@@ -32,152 +86,333 @@ public class PluginLoader {
 	public static PluginLoader getInstance() {
 		return mPluginLoader;
 	}
-	
+
+	/**
+	 * sets the directory the plugins are loaded from. by default this is the directory 'plugins' in the working directory
+	 * @param dir the plugin directory
+	 */
+	public void setPluginDir(File dir) {
+		mPluginDir = dir;
+	}
+
 	/**
-	 * loads the plugins in the plugin dir that extends the AbstractAlgorithm
-	 * @return returns the list of found algorithms
+	 * loads the metadata of the plugins (class and jar files) in the plugin dir. the class loaders of the previously
+	 * loaded plugins are closed, so their algorithms must not be created or used any more
+	 * @return returns the list of found plugins
 	 */
-	public ArrayList<AbstractAlgorithm> loadPlugins() {
-		
+	public synchronized ArrayList<PluginInfo> loadPlugins() {
+		closeClassLoaders();
+
 		if(!mPluginDir.exists()) {
 			//System.out.println("plugin dir ("+ mPluginDir +") does not exist!");
 			return null;
 		}
-			
-		String[] files = mPluginDir.list(new FilenameFilter() {
-			@Override
-			public boolean accept(File dir, String name) {
-				return name.endsWith(".class");
-			}
-		});
-		
-		String[] classes = new String[files.length];
-		for(int i = 0; i < files.length; i++)
-			classes[i] = files[i].substring(0, files[i].length() - 6);
-		
-		if(files.length == 0)
-			return null;
-		
-		URL url = null;
-		try {
-			url = mPluginDir.toURI().toURL();
-		} catch (MalformedURLException e) {
-			ErrorDialog.showErrorDialog(null, "malformed url", e);
-			//e.printStackTrace();
+
+		File[] classFiles = listFiles(".class");
+		File[] jarFiles = listFiles(".jar");
+		if(classFiles.length == 0 && jarFiles.length == 0)
 			return null;
-		}
-		URL[] urls = new URL[]{url};
-		ArrayList<AbstractAlgorithm> algorithms = new ArrayList<AbstractAlgorithm>();
-		ClassLoader loader = new URLClassLoader(urls);
-		for(String name : classes) {
+
+		URLClassLoader dirLoader = null;
+		if(classFiles.length > 0) {
 			try {
-				//System.out.println("name: "+ name);
-				Class clss = loader.loadClass(name);
-				Object o = clss.newInstance();
-				//System.out.println("getclassname: "+ o.getClass().getName());
-				//System.out.println("getsuperclass: "+ o.getClass().getSuperclass().getName());
-				AbstractAlgorithm algo = (AbstractAlgorithm) o;
-				algorithms.add(algo);
-			} /*catch(NoClassDefFoundError e) {
-				e.printStackTrace();
-			} catch (ClassNotFoundException e) {
-				e.printStackTrace();
-			} catch (InstantiationException e) {
-				e.printStackTrace();
-			} catch (IllegalAccessException e) {
-				e.printStackTrace();
-			}*/ catch (Exception e) {
-				ErrorDialog.showErrorDialog(null, "cannot load plugin '" + name + "'", e);
+				dirLoader = new URLClassLoader(new URL[] { mPluginDir.toURI().toURL() });
+				mClassLoaders.add(dirLoader);
+			} catch (MalformedURLException e) {
+				ErrorDialog.showErrorDialog(null, "malformed url", e);
+				classFiles = new File[0];
 			}
 		}
-		
+
+		Properties index = loadIndex();
+		Properties newIndex = new Properties();
+
+		// read all plugins in parallel, but keep their order
+		ArrayList<Callable<Plugin>> tasks = new ArrayList<Callable<Plugin>>();
+		for(File file : classFiles)
+			tasks.add(new PluginTask(file, dirLoader, index));
+		for(File file : jarFiles)
+			tasks.add(new PluginTask(file, null, index));
+
+		ArrayList<PluginInfo> plugins = new ArrayList<PluginInfo>();
+		ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(MAX_THREADS, tasks.size())));
 		try {
-			algorithms.addAll(loadPluginsJar());
-		} catch (Exception e) {
-			e.printStackTrace();
+			for(Future<Plugin> future : pool.invokeAll(tasks)) {
+				Plugin plugin;
+				try {
+					plugin = future.get();
+				} catch (ExecutionException e) {
+					// the tasks catch their errors themselves
+					e.printStackTrace();
+					continue;
+				}
+
+				if(plugin.mLoader != null)
+					mClassLoaders.add(plugin.mLoader);
+
+				if(plugin.mError != null) {
+					ErrorDialog.showErrorDialog(null, "cannot load plugin '" + plugin.mFile.getName() + "'", plugin.mError);
+					continue;
+				}
+
+				plugins.add(plugin.mInfo);
+				String key = plugin.mFile.getName() +"#";
+				newIndex.setProperty(key + KEY_STAMP, stamp(plugin.mFile));
+				newIndex.setProperty(key + KEY_CLASS, plugin.mInfo.getClassName());
+				newIndex.setProperty(key + KEY_NAME, plugin.mInfo.getName());
+				newIndex.setProperty(key + KEY_REQUIREMENTS, PluginInfo.formatRequirements(plugin.mInfo.getRequirements()));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			pool.shutdown();
 		}
-			
-		return algorithms;
+
+		if(!newIndex.equals(index))
+			saveIndex(newIndex);
+
+		return plugins;
 	}
-	
-	
-	
-	public ArrayList<AbstractAlgorithm> loadPluginsJar() {
-		
-		if(!mPluginDir.exists()) {
-			//System.out.println("plugin dir ("+ mPluginDir +") does not exist!");
-			return null;
-		}
-			
-		String[] jarFilenames = mPluginDir.list(new FilenameFilter() {
+
+
+	private File[] listFiles(final String extension) {
+		File[] files = mPluginDir.listFiles(new FilenameFilter() {
 			@Override
 			public boolean accept(File dir, String name) {
-				return name.endsWith(".jar");
+				return name.endsWith(extension);
 			}
 		});
-		
-		String[] classNames = new String[jarFilenames.length];
-		File[] jarFiles = new File[jarFilenames.length];
-		for(int i = 0; i < jarFilenames.length; i++) {
-			classNames[i] = jarFilenames[i].substring(0, jarFilenames[i].length() - 4);
-			jarFiles[i] = new File(mPluginDir.getPath() + "/" + jarFilenames[i]);
+
+		if(files == null)
+			return new File[0];
+
+		Arrays.sort(files);
+		return files;
+	}
+
+	/**
+	 * closes the class loaders of the previously loaded plugins
+	 */
+	private void closeClassLoaders() {
+		for(URLClassLoader loader : mClassLoaders) {
+			try {
+				loader.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
 		}
-		
-		if(jarFilenames.length == 0)
-			return null;
-		
-		/*
-		URL url = null;
+		mClassLoaders.clear();
+	}
+
+
+	/**
+	 * returns the index file of the plugin directory. it is not written into the plugin directory, because that may be
+	 * read only and is shipped with the program, while the index depends on the files of this machine
+	 */
+	private File getIndexFile() {
+		String dir = mPluginDir.getAbsolutePath();
+		return new File(System.getProperty("java.io.tmpdir"), INDEX_PREFIX + Integer.toHexString(dir.hashCode()) + INDEX_EXTENSION);
+	}
+
+	private Properties loadIndex() {
+		Properties index = new Properties();
+		File file = getIndexFile();
+		if(!file.exists())
+			return index;
+
 		try {
-			url = mPluginDir.toURI().toURL();
-		} catch (MalformedURLException e) {
-			ErrorDialog.showErrorDialog(null, "malformed url", e);
-			//e.printStackTrace();
-			return null;
+			InputStream in = new FileInputStream(file);
+			try {
+				index.load(in);
+			} finally {
+				in.close();
+			}
+		} catch(IOException e) {
+			// the index is only a cache, without it the plugins are just instantiated again
+			index.clear();
 		}
-		//URL[] urls = new URL[]{url};
-		URL[] urls;
+		return index;
+	}
+
+	private void saveIndex(Properties index) {
 		try {
-			urls={new URL("jar:file:"+ url +"!/")};
-		} catch (Exception e) {
-			ErrorDialog.showErrorDialog(null, "cannot URL Array for '" + urls + "'", e);
+			OutputStream out = new FileOutputStream(getIndexFile());
+			try {
+				index.store(out, "ViGrAl plugin index: <plugin>#stamp = <size>;<last modified>, <plugin>#class, <plugin>#name, <plugin>#requirements");
+			} finally {
+				out.close();
+			}
+		} catch(IOException e) {
+			// the index is only a cache, the plugins are instantiated again next time
 		}
-		*/
-		ArrayList<AbstractAlgorithm> algorithms = new ArrayList<AbstractAlgorithm>();
-		
-		String className = "";
-		for(int i = 0; i < jarFiles.length; i++) {
+	}
+
+	/**
+	 * returns the stamp of the given file, that changes whenever the file is changed
+	 */
+	private static String stamp(File file) {
+		return file.length() +";"+ file.lastModified();
+	}
+
+	private static boolean isAlgorithm(Class<?> clss) {
+		return AbstractAlgorithm.class.isAssignableFrom(clss) && !Modifier.isAbstract(clss.getModifiers());
+	}
+
+
+
+	/**
+	 * the result of reading a single plugin file
+	 */
+	private static class Plugin {
+		private File mFile;
+		private URLClassLoader mLoader;
+		private PluginInfo mInfo;
+		private Exception mError;
+
+		private Plugin(File file) {
+			mFile = file;
+		}
+	}
+
+
+	/**
+	 * reads the metadata of a plugin. a class file is loaded with the class loader of the plugin dir, its class is named
+	 * like the file. a jar gets its own class loader, the class is taken from the manifest, the properties file or the
+	 * index. otherwise it is expected to be named like the jar or the jar is searched for a class that extends the
+	 * AbstractAlgorithm
+	 */
+	private static class PluginTask implements Callable<Plugin> {
+		private File mFile;
+		private ClassLoader mLoader;
+		private Properties mIndex;
+
+		private PluginTask(File file, ClassLoader loader, Properties index) {
+			mFile = file;
+			mLoader = loader;
+			mIndex = index;
+		}
+
+		@Override
+		public Plugin call() {
+			Plugin plugin = new Plugin(mFile);
+			String fileName = mFile.getName();
+			String baseName = fileName.substring(0, fileName.lastIndexOf('.'));
+			JarFile jar = null;
+
 			try {
-				className = classNames[i];
-				URL fileURL = jarFiles[i].toURI().toURL();
-				String jarURL = "jar:" + fileURL + "!/";
-				URL urls[] = { new URL(jarURL) };
-				ClassLoader loader = new URLClassLoader(urls);
-				//System.out.println("name: "+ name);
-				Class clss = loader.loadClass(className);
-				Object o = clss.newInstance();
-				//System.out.println("getclassname: "+ o.getClass().getName());
-				//System.out.println("getsuperclass: "+ o.getClass().getSuperclass().getName());
-				AbstractAlgorithm algo = (AbstractAlgorithm) o;
-				algorithms.add(algo);
-			} /*catch(NoClassDefFoundError e) {
-				e.printStackTrace();
-			} catch (ClassNotFoundException e) {
-				e.printStackTrace();
-			} catch (InstantiationException e) {
-				e.printStackTrace();
-			} catch (IllegalAccessException e) {
-				e.printStackTrace();
-			}*/ catch (Exception e) {
-				ErrorDialog.showErrorDialog(null, "cannot load plugin '" + className + "'", e);
+				Properties meta = new Properties();
+				if(mLoader == null) {
+					plugin.mLoader = new URLClassLoader(new URL[] { mFile.toURI().toURL() });
+					mLoader = plugin.mLoader;
+					jar = new JarFile(mFile);
+					readManifest(jar, meta);
+				}
+				readProperties(new File(mFile.getParentFile(), baseName +".properties"), meta);
+
+				// the metadata of the index is only valid, if the plugin has not been changed since
+				String key = mFile.getName() +"#";
+				boolean indexed = stamp(mFile).equals(mIndex.getProperty(key + KEY_STAMP));
+
+				String className = meta.getProperty(KEY_CLASS);
+				if(className == null && indexed)
+					className = mIndex.getProperty(key + KEY_CLASS);
+				if(className == null) {
+					className = baseName;
+					if(jar != null && jar.getEntry(className.replace('.', '/') +".class") == null)
+						className = findAlgorithmClass(jar);
+				}
+				if(className == null)
+					throw new ClassNotFoundException("no class extending AbstractAlgorithm found in "+ fileName);
+
+				String name = meta.getProperty(KEY_NAME);
+				String requirements = meta.getProperty(KEY_REQUIREMENTS);
+				if(name == null && indexed && className.equals(mIndex.getProperty(key + KEY_CLASS))) {
+					name = mIndex.getProperty(key + KEY_NAME);
+					requirements = mIndex.getProperty(key + KEY_REQUIREMENTS);
+				}
+
+				ArrayList<Pair<ElementType, String>> required;
+				if(name == null) {
+					// no metadata, so the algorithm has to tell it
+					AbstractAlgorithm algorithm = new PluginInfo(mFile, mLoader, className, null, null).createAlgorithm();
+					name = algorithm.getAlgorithmName();
+					required = algorithm.getRequirements();
+				} else {
+					required = PluginInfo.parseRequirements(requirements);
+				}
+
+				plugin.mInfo = new PluginInfo(mFile, mLoader, className, name, required);
+			} catch (Exception e) {
+				plugin.mError = e;
+			} finally {
+				if(jar != null) {
+					try {
+						jar.close();
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}
+			}
+
+			return plugin;
+		}
+
+		private void readManifest(JarFile jar, Properties meta) throws IOException {
+			Manifest manifest = jar.getManifest();
+			if(manifest == null)
+				return;
+
+			Attributes attributes = manifest.getMainAttributes();
+			putIfSet(meta, KEY_CLASS, attributes.getValue(MANIFEST_CLASS));
+			putIfSet(meta, KEY_NAME, attributes.getValue(MANIFEST_NAME));
+			putIfSet(meta, KEY_REQUIREMENTS, attributes.getValue(MANIFEST_REQUIREMENTS));
+		}
+
+		/**
+		 * reads the properties file next to the plugin. its entries override the ones of the manifest
+		 */
+		private void readProperties(File file, Properties meta) throws IOException {
+			if(!file.exists())
+				return;
+
+			Properties properties = new Properties();
+			InputStream in = new FileInputStream(file);
+			try {
+				properties.load(in);
+			} finally {
+				in.close();
 			}
+			putIfSet(meta, KEY_CLASS, properties.getProperty(KEY_CLASS));
+			putIfSet(meta, KEY_NAME, properties.getProperty(KEY_NAME));
+			putIfSet(meta, KEY_REQUIREMENTS, properties.getProperty(KEY_REQUIREMENTS));
+		}
+
+		private static void putIfSet(Properties meta, String key, String value) {
+			if(value != null && !value.trim().isEmpty())
+				meta.setProperty(key, value.trim());
+		}
+
+		/**
+		 * searches all classes of the jar for the first one that extends the AbstractAlgorithm
+		 */
+		private String findAlgorithmClass(JarFile jar) {
+			Enumeration<JarEntry> entries = jar.entries();
+			while(entries.hasMoreElements()) {
+				String entry = entries.nextElement().getName();
+				if(!entry.endsWith(".class") || entry.contains("$"))
+					continue;
+
+				String className = entry.substring(0, entry.length() - 6).replace('/', '.');
+				try {
+					if(isAlgorithm(Class.forName(className, false, mLoader)))
+						return className;
+				} catch (ClassNotFoundException e) {
+					// not loadable on its own, so it is no plugin
+				} catch (LinkageError e) {
+					// not loadable on its own, so it is no plugin
+				}
+			}
+			return null;
 		}
-		
-		return algorithms;
 	}
-	
-	
-	
-	
-	
 }